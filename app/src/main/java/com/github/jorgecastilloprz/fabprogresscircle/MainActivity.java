@@ -1,22 +1,28 @@
 package com.github.jorgecastilloprz.fabprogresscircle;
 
 import android.app.Activity;
+import android.content.Intent;
 import android.os.Bundle;
 import android.support.design.widget.Snackbar;
 import android.view.View;
 import android.widget.ImageView;
 import com.github.jorgecastilloprz.FABProgressCircle;
+import com.github.jorgecastilloprz.fabprogresscircle.demo.StressDemoActivity;
 import com.github.jorgecastilloprz.fabprogresscircle.executor.ThreadExecutor;
 import com.github.jorgecastilloprz.fabprogresscircle.interactor.MockAction;
 import com.github.jorgecastilloprz.fabprogresscircle.interactor.MockActionCallback;
 import com.github.jorgecastilloprz.fabprogresscircle.picasso.GrayscaleCircleTransform;
 import com.github.jorgecastilloprz.listeners.FABProgressListener;
 import com.squareup.picasso.Picasso;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 public class MainActivity extends Activity implements MockActionCallback, FABProgressListener {
 
   private FABProgressCircle fabProgressCircle;
   private boolean taskRunning;
+  private MockAction mockAction;
+  private Future<?> mockActionFuture;
 
   @Override protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -24,6 +30,32 @@ public class MainActivity extends Activity implements MockActionCallback, FABPro
     initViews();
     loadAvatar();
     attachListeners();
+    takeOverRetainedMockAction();
+  }
+
+  /**
+   * The arc restores itself spinning after a configuration change, so the interactor behind it is
+   * kept running and finishes it here, instead of the destroyed activity.
+   */
+  private void takeOverRetainedMockAction() {
+    RunningMockAction retained = (RunningMockAction) getLastNonConfigurationInstance();
+    if (retained != null) {
+      mockAction = retained.action;
+      mockActionFuture = retained.future;
+      mockAction.setCallback(this);
+      taskRunning = true;
+    }
+  }
+
+  /**
+   * Without an interactor surviving, like after the process got killed, nothing would ever finish
+   * the restored arc.
+   */
+  @Override protected void onRestoreInstanceState(Bundle savedInstanceState) {
+    super.onRestoreInstanceState(savedInstanceState);
+    if (!taskRunning) {
+      fabProgressCircle.hide();
+    }
   }
 
   private void initViews() {
@@ -34,7 +66,8 @@ public class MainActivity extends Activity implements MockActionCallback, FABPro
     ImageView avatarView = (ImageView) findViewById(R.id.avatar);
     Picasso.with(this)
         .load(R.drawable.avatar)
-        .transform(new GrayscaleCircleTransform())
+        .transform(new GrayscaleCircleTransform(
+            getResources().getDimensionPixelSize(R.dimen.avatarSize)))
         .into(avatarView);
   }
 
@@ -43,22 +76,46 @@ public class MainActivity extends Activity implements MockActionCallback, FABPro
 
     findViewById(R.id.fab).setOnClickListener(new View.OnClickListener() {
       @Override public void onClick(View view) {
-        if (!taskRunning) {
+        if (!taskRunning && runMockInteractor()) {
           fabProgressCircle.show();
-          runMockInteractor();
         }
       }
     });
+
+    findViewById(R.id.overflowIcon).setOnClickListener(new View.OnClickListener() {
+      @Override public void onClick(View view) {
+        startActivity(new Intent(MainActivity.this, StressDemoActivity.class));
+      }
+    });
   }
 
-  private void runMockInteractor() {
-    ThreadExecutor executor = new ThreadExecutor();
-    executor.run(new MockAction(this));
-    taskRunning = true;
+  private boolean runMockInteractor() {
+    try {
+      MockAction action = new MockAction(this);
+      mockActionFuture = ThreadExecutor.getInstance().run(action);
+      mockAction = action;
+      taskRunning = true;
+    } catch (RejectedExecutionException e) {
+      Snackbar.make(fabProgressCircle, R.string.executor_busy, Snackbar.LENGTH_SHORT).show();
+    }
+    return taskRunning;
+  }
+
+  @Override public Object onRetainNonConfigurationInstance() {
+    return taskRunning ? new RunningMockAction(mockAction, mockActionFuture) : null;
+  }
+
+  @Override protected void onDestroy() {
+    if (!isChangingConfigurations()) {
+      ThreadExecutor.getInstance().cancel(mockActionFuture);
+    }
+    super.onDestroy();
   }
 
   @Override public void onMockActionComplete() {
     taskRunning = false;
+    mockAction = null;
+    mockActionFuture = null;
     fabProgressCircle.beginFinalAnimation();
     //fabProgressCircle.hide();
   }
@@ -68,4 +125,15 @@ public class MainActivity extends Activity implements MockActionCallback, FABPro
         .setAction("Action", null)
         .show();
   }
+
+  private static final class RunningMockAction {
+
+    final MockAction action;
+    final Future<?> future;
+
+    RunningMockAction(MockAction action, Future<?> future) {
+      this.action = action;
+      this.future = future;
+    }
+  }
 }
\ No newline at end of file
@@ -17,7 +17,6 @@ package com.github.jorgecastilloprz.fabprogresscircle.components;
 
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Typeface;
 import android.util.AttributeSet;
 import android.widget.TextView;
 import com.github.jorgecastilloprz.fabprogresscircle.R;
@@ -27,7 +26,11 @@ import com.github.jorgecastilloprz.fabprogresscircle.R;
  */
 public class RobotoTextView extends TextView {
 
-  private String basePath = "typeface/";
+  private static final String BASE_PATH = "typeface/";
+  private static final String REGULAR_PATH = BASE_PATH + "Roboto-Regular.ttf";
+  private static final String MEDIUM_PATH = BASE_PATH + "Roboto-Medium.ttf";
+
+  public static final String[] TYPEFACE_PATHS = { REGULAR_PATH, MEDIUM_PATH };
 
   public RobotoTextView(Context context) {
     super(context);
@@ -65,17 +68,15 @@ public class RobotoTextView extends TextView {
   }
 
   private void setTypeface(int typeFaceNumber) {
-    Typeface typeface =
-        Typeface.createFromAsset(getResources().getAssets(), getPathForTypeface(typeFaceNumber));
-    setTypeface(typeface);
+    setTypeface(TypefaceCache.get(getResources().getAssets(), getPathForTypeface(typeFaceNumber)));
   }
 
-  private String getPathForTypeface(int typeFaceNumber) {
+  private static String getPathForTypeface(int typeFaceNumber) {
     switch (typeFaceNumber) {
       case 0:
-        return basePath + "Roboto-Regular.ttf";
+        return REGULAR_PATH;
       default:
-        return basePath + "Roboto-Medium.ttf";
+        return MEDIUM_PATH;
     }
   }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.fabprogresscircle.components;
+
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+import com.github.jorgecastilloprz.fabprogresscircle.executor.Interactor;
+import com.github.jorgecastilloprz.fabprogresscircle.executor.ThreadExecutor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide registry of typefaces loaded from assets, keyed by asset path. Every font file is
+ * read and parsed only once, and then shared by every view using it. Safe to be used from any
+ * thread, so fonts can be preloaded in background at startup.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class TypefaceCache {
+
+  private static final ConcurrentMap<String, Typeface> TYPEFACES = new ConcurrentHashMap<>();
+  private static final AtomicLong HITS = new AtomicLong();
+  private static final AtomicLong MISSES = new AtomicLong();
+
+  private TypefaceCache() {
+  }
+
+  public static Typeface get(AssetManager assets, String path) {
+    Typeface typeface = TYPEFACES.get(path);
+    if (typeface != null) {
+      HITS.incrementAndGet();
+      return typeface;
+    }
+
+    MISSES.incrementAndGet();
+    typeface = Typeface.createFromAsset(assets, path);
+    Typeface previous = TYPEFACES.putIfAbsent(path, typeface);
+    return previous != null ? previous : typeface;
+  }
+
+  /**
+   * Loads the given typefaces in a background thread, so views inflated later just do a lookup.
+   */
+  public static void preload(final AssetManager assets, final String... paths) {
+    ThreadExecutor.getInstance().run(new Interactor() {
+      @Override public void run() {
+        for (String path : paths) {
+          if (!TYPEFACES.containsKey(path)) {
+            get(assets, path);
+          }
+        }
+      }
+    });
+  }
+
+  public static long getHitCount() {
+    return HITS.get();
+  }
+
+  public static long getMissCount() {
+    return MISSES.get();
+  }
+
+  /**
+   * @return ratio of lookups served from the cache, from 0 to 1.
+   */
+  public static float getHitRate() {
+    long hits = HITS.get();
+    long total = hits + MISSES.get();
+    return total == 0 ? 0 : (float) hits / total;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.fabprogresscircle.demo;
+
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.widget.TextView;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows every frame with a {@link Choreographer} callback and prints, twice a second, the
+ * average and worst frame time, the dropped frames, the running animators and the used heap.
+ *
+ * A frame is considered dropped for every vsync missed between two callbacks. The animator count
+ * comes from a hidden {@link ValueAnimator} method, and is shown as n/a where it cannot be found.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameStatsMonitor implements Choreographer.FrameCallback {
+
+  private static final long FRAME_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+  private static final long REPORT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+  private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+  private final TextView output;
+  private final StringBuilder text = new StringBuilder();
+  private final Method animationsCountMethod = findAnimationsCountMethod();
+
+  private boolean running;
+  private long lastFrameNanos;
+  private long reportStartNanos;
+  private int reportFrames;
+  private long reportWorstNanos;
+  private long droppedFrames;
+
+  FrameStatsMonitor(TextView output) {
+    this.output = output;
+  }
+
+  void start() {
+    if (!running) {
+      running = true;
+      lastFrameNanos = 0;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  void stop() {
+    running = false;
+    Choreographer.getInstance().removeFrameCallback(this);
+  }
+
+  void resetDroppedFrames() {
+    droppedFrames = 0;
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    if (lastFrameNanos == 0) {
+      reportStartNanos = frameTimeNanos;
+    } else {
+      long interval = frameTimeNanos - lastFrameNanos;
+      reportFrames++;
+      reportWorstNanos = Math.max(reportWorstNanos, interval);
+      long missedVsyncs = (interval + FRAME_INTERVAL_NANOS / 2) / FRAME_INTERVAL_NANOS - 1;
+      if (missedVsyncs > 0) {
+        droppedFrames += missedVsyncs;
+      }
+    }
+    lastFrameNanos = frameTimeNanos;
+
+    if (frameTimeNanos - reportStartNanos >= REPORT_INTERVAL_NANOS && reportFrames > 0) {
+      report(frameTimeNanos);
+    }
+    if (running) {
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  private void report(long frameTimeNanos) {
+    Runtime runtime = Runtime.getRuntime();
+    long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+    long averageNanos = (frameTimeNanos - reportStartNanos) / reportFrames;
+
+    text.setLength(0);
+    text.append("frame ").append(toMillis(averageNanos)).append(" ms avg, ")
+        .append(toMillis(reportWorstNanos)).append(" ms worst\n");
+    text.append("dropped ").append(droppedFrames).append('\n');
+    text.append("animators ");
+    int animators = getAnimationsCount();
+    if (animators < 0) {
+      text.append("n/a");
+    } else {
+      text.append(animators);
+    }
+    text.append('\n');
+    text.append("heap ").append(usedHeap / BYTES_PER_MEGABYTE).append(" / ")
+        .append(runtime.maxMemory() / BYTES_PER_MEGABYTE).append(" MB");
+    output.setText(text);
+
+    reportStartNanos = frameTimeNanos;
+    reportFrames = 0;
+    reportWorstNanos = 0;
+  }
+
+  private static String toMillis(long nanos) {
+    long tenths = nanos / 100000;
+    return (tenths / 10) + "." + (tenths % 10);
+  }
+
+  private int getAnimationsCount() {
+    if (animationsCountMethod == null) {
+      return -1;
+    }
+    try {
+      return (Integer) animationsCountMethod.invoke(null);
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  private static Method findAnimationsCountMethod() {
+    try {
+      return ValueAnimator.class.getMethod("getCurrentAnimationsCount");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.fabprogresscircle.demo;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.design.widget.Snackbar;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.SeekBar;
+import android.widget.TextView;
+import com.github.jorgecastilloprz.fabprogresscircle.R;
+import com.github.jorgecastilloprz.progressarc.ArcOverlay;
+import com.github.jorgecastilloprz.trace.FrameTraceRecorder;
+import com.github.jorgecastilloprz.trace.LibraryTrace;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Stress screen: hundreds of FABProgressCircle rows with fake tasks of configurable duration and
+ * concurrency, and live frame stats on top. The library performance modes can be toggled while
+ * it runs, to compare them on a real device before rolling them out.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public class StressDemoActivity extends Activity
+    implements StressTaskScheduler.Listener, CompoundButton.OnCheckedChangeListener {
+
+  private static final int ROW_COUNT = 500;
+  private static final int MIN_TASK_DURATION = 250;
+  private static final int MIN_CONCURRENCY = 1;
+  private static final int FRAME_TRACE_CAPACITY = 64 * 1024;
+  private static final String FRAME_TRACE_FILE = "stress_frames.trace";
+
+  private final StressDemoModes modes = new StressDemoModes();
+  private StressTaskScheduler scheduler;
+  private StressRowAdapter adapter;
+  private FrameStatsMonitor frameStatsMonitor;
+  private RecyclerView list;
+  private TextView taskDurationLabel;
+  private TextView concurrencyLabel;
+
+  @Override protected void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+    setContentView(R.layout.activity_stress_demo);
+    scheduler = new StressTaskScheduler(ROW_COUNT, this);
+    initList();
+    initFrameStats();
+    initControls();
+  }
+
+  private void initList() {
+    ArcOverlay arcOverlay = (ArcOverlay) findViewById(R.id.arcOverlay);
+    adapter = new StressRowAdapter(ROW_COUNT, scheduler, modes, arcOverlay,
+        getResources().getIntArray(R.array.stress_gradient));
+    list = (RecyclerView) findViewById(R.id.list);
+    list.setLayoutManager(new LinearLayoutManager(this));
+    list.setHasFixedSize(true);
+    list.setAdapter(adapter);
+  }
+
+  /**
+   * There is no Choreographer before JellyBean, so the stats just are not available there.
+   */
+  private void initFrameStats() {
+    TextView frameStats = (TextView) findViewById(R.id.frameStats);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      frameStatsMonitor = new FrameStatsMonitor(frameStats);
+    } else {
+      frameStats.setText(R.string.stress_frame_stats_unavailable);
+    }
+  }
+
+  private void initControls() {
+    taskDurationLabel = (TextView) findViewById(R.id.taskDurationLabel);
+    bindSeekBar(R.id.taskDuration, new ProgressListener() {
+      @Override public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+        int duration = MIN_TASK_DURATION + progress;
+        scheduler.setTaskDuration(duration);
+        taskDurationLabel.setText(getString(R.string.stress_task_duration, duration));
+      }
+    });
+
+    concurrencyLabel = (TextView) findViewById(R.id.concurrencyLabel);
+    bindSeekBar(R.id.concurrency, new ProgressListener() {
+      @Override public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+        int tasks = MIN_CONCURRENCY + progress;
+        scheduler.setConcurrency(tasks);
+        concurrencyLabel.setText(getString(R.string.stress_concurrency, tasks));
+      }
+    });
+
+    int[] toggles = {
+        R.id.modeArcOverlay, R.id.modeGradient, R.id.modeNoDelays, R.id.modeSystrace,
+        R.id.modeFrameTrace
+    };
+    for (int toggle : toggles) {
+      ((CheckBox) findViewById(toggle)).setOnCheckedChangeListener(this);
+    }
+  }
+
+  /**
+   * Seek bars do not notify their initial progress, so the listener is called once by hand.
+   */
+  private void bindSeekBar(int id, SeekBar.OnSeekBarChangeListener listener) {
+    SeekBar seekBar = (SeekBar) findViewById(id);
+    seekBar.setOnSeekBarChangeListener(listener);
+    listener.onProgressChanged(seekBar, seekBar.getProgress(), false);
+  }
+
+  @Override protected void onResume() {
+    super.onResume();
+    scheduler.start();
+    adapter.notifyDataSetChanged();
+    if (frameStatsMonitor != null) {
+      frameStatsMonitor.start();
+    }
+  }
+
+  /**
+   * Tasks are dropped, and the rows go back to idle once resumed.
+   */
+  @Override protected void onPause() {
+    scheduler.stop();
+    if (frameStatsMonitor != null) {
+      frameStatsMonitor.stop();
+    }
+    super.onPause();
+  }
+
+  @Override protected void onDestroy() {
+    LibraryTrace.setEnabled(false);
+    super.onDestroy();
+  }
+
+  @Override public void onTaskStarted(int position) {
+    StressRowAdapter.RowHolder holder = findRow(position);
+    if (holder != null) {
+      holder.onTaskStarted();
+    }
+  }
+
+  @Override public void onTaskFinished(int position) {
+    StressRowAdapter.RowHolder holder = findRow(position);
+    if (holder != null) {
+      holder.onTaskFinished();
+    }
+  }
+
+  private StressRowAdapter.RowHolder findRow(int position) {
+    return (StressRowAdapter.RowHolder) list.findViewHolderForAdapterPosition(position);
+  }
+
+  @Override public void onCheckedChanged(CompoundButton button, boolean checked) {
+    switch (button.getId()) {
+      case R.id.modeArcOverlay:
+        modes.arcOverlay = checked;
+        break;
+      case R.id.modeGradient:
+        modes.gradient = checked;
+        break;
+      case R.id.modeNoDelays:
+        modes.noDelays = checked;
+        break;
+      case R.id.modeSystrace:
+        LibraryTrace.setEnabled(checked);
+        if (checked && !LibraryTrace.isEnabled()) {
+          button.setChecked(false);
+          Snackbar.make(list, R.string.stress_systrace_unavailable, Snackbar.LENGTH_SHORT).show();
+        }
+        return;
+      case R.id.modeFrameTrace:
+        if (checked) {
+          modes.frameTraceRecorder = new FrameTraceRecorder(FRAME_TRACE_CAPACITY);
+        } else {
+          dumpFrameTrace();
+          modes.frameTraceRecorder = null;
+        }
+        break;
+      default:
+        return;
+    }
+
+    modes.changed();
+    adapter.notifyDataSetChanged();
+    if (frameStatsMonitor != null) {
+      frameStatsMonitor.resetDroppedFrames();
+    }
+  }
+
+  /**
+   * Decode it with {@code FrameTraceDecoder} after pulling it from the app files directory.
+   */
+  private void dumpFrameTrace() {
+    File file = new File(getFilesDir(), FRAME_TRACE_FILE);
+    int message;
+    try {
+      modes.frameTraceRecorder.dump(file);
+      message = R.string.stress_frame_trace_dumped;
+    } catch (IOException e) {
+      message = R.string.stress_frame_trace_failed;
+    }
+    Snackbar.make(list, getString(message, file.getAbsolutePath()), Snackbar.LENGTH_LONG).show();
+  }
+
+  /**
+   * Only progress changes are of interest.
+   */
+  private abstract static class ProgressListener implements SeekBar.OnSeekBarChangeListener {
+
+    @Override public void onStartTrackingTouch(SeekBar seekBar) {
+    }
+
+    @Override public void onStopTrackingTouch(SeekBar seekBar) {
+    }
+  }
+}
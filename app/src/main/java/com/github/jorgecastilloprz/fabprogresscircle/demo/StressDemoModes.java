@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.fabprogresscircle.demo;
+
+import com.github.jorgecastilloprz.trace.FrameTraceRecorder;
+
+/**
+ * Library performance modes picked on the stress demo. Rows compare the generation they were
+ * last configured with against the current one, so they are only reconfigured after a change.
+ *
+ * @author Jorge Castillo Pérez
+ */
+class StressDemoModes {
+
+  boolean arcOverlay;
+  boolean gradient;
+  boolean noDelays;
+  FrameTraceRecorder frameTraceRecorder;
+  int generation;
+
+  void changed() {
+    generation++;
+  }
+}
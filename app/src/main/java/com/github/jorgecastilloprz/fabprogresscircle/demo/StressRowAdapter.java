@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.fabprogresscircle.demo;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import com.github.jorgecastilloprz.FABProgressCircle;
+import com.github.jorgecastilloprz.completefab.CompleteFABView;
+import com.github.jorgecastilloprz.fabprogresscircle.R;
+import com.github.jorgecastilloprz.progressarc.ArcOverlay;
+import com.github.jorgecastilloprz.utils.AnimationUtils;
+
+/**
+ * Rows of the stress demo, one reusable FABProgressCircle each. Task state lives in the
+ * scheduler, so recycled rows get their component shown or hidden to match the task of the
+ * position they are bound to.
+ *
+ * @author Jorge Castillo Pérez
+ */
+class StressRowAdapter extends RecyclerView.Adapter<StressRowAdapter.RowHolder> {
+
+  private final StressTaskScheduler scheduler;
+  private final StressDemoModes modes;
+  private final ArcOverlay arcOverlay;
+  private final int[] gradientColors;
+  private final int rowCount;
+
+  StressRowAdapter(int rowCount, StressTaskScheduler scheduler, StressDemoModes modes,
+      ArcOverlay arcOverlay, int[] gradientColors) {
+    this.rowCount = rowCount;
+    this.scheduler = scheduler;
+    this.modes = modes;
+    this.arcOverlay = arcOverlay;
+    this.gradientColors = gradientColors;
+  }
+
+  @Override public RowHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+    View view = LayoutInflater.from(parent.getContext())
+        .inflate(R.layout.item_stress_row, parent, false);
+    return new RowHolder(view);
+  }
+
+  @Override public void onBindViewHolder(RowHolder holder, int position) {
+    holder.label.setText(holder.label.getResources().getString(R.string.stress_row, position));
+    applyModes(holder);
+    holder.sync(scheduler.isRunning(position));
+  }
+
+  @Override public int getItemCount() {
+    return rowCount;
+  }
+
+  private void applyModes(RowHolder holder) {
+    if (holder.modesGeneration == modes.generation) {
+      return;
+    }
+
+    FABProgressCircle circle = holder.circle;
+    circle.setArcOverlay(modes.arcOverlay ? arcOverlay : null);
+    circle.setArcColors(modes.gradient ? gradientColors : null);
+    circle.setShowDelay(modes.noDelays ? 0 : AnimationUtils.SHOW_SCALE_ANIM_DELAY);
+    circle.setMinShowTime(modes.noDelays ? 0 : AnimationUtils.MIN_SHOW_TIME);
+    circle.setResetDelay(modes.noDelays ? 0 : CompleteFABView.RESET_DELAY);
+    circle.setFrameTraceRecorder(modes.frameTraceRecorder);
+    holder.modesGeneration = modes.generation;
+  }
+
+  static class RowHolder extends RecyclerView.ViewHolder {
+
+    final FABProgressCircle circle;
+    final TextView label;
+    int modesGeneration = -1;
+
+    RowHolder(View itemView) {
+      super(itemView);
+      circle = (FABProgressCircle) itemView.findViewById(R.id.fabProgressCircle);
+      label = (TextView) itemView.findViewById(R.id.label);
+    }
+
+    void onTaskStarted() {
+      circle.show();
+    }
+
+    void onTaskFinished() {
+      circle.beginFinalAnimation();
+    }
+
+    /**
+     * Components finishing their completion keep it, even if bound to a position with no task.
+     */
+    void sync(boolean taskRunning) {
+      FABProgressCircle.State state = circle.getState();
+      if (taskRunning && state == FABProgressCircle.State.IDLE) {
+        circle.show();
+      } else if (!taskRunning && (state == FABProgressCircle.State.SHOWING
+          || state == FABProgressCircle.State.SPINNING)) {
+        circle.hide();
+      }
+    }
+  }
+}
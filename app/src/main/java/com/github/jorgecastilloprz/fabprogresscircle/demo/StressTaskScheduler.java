@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.fabprogresscircle.demo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import java.util.Random;
+
+/**
+ * Keeps a configurable amount of fake tasks running over the rows of the stress demo. Every task
+ * is just a delayed main thread message, so the only real work measured on the main thread is
+ * the one done by the components.
+ *
+ * Task durations are spread between half and one and a half times the configured one, for tasks
+ * not to finish all at the same time.
+ *
+ * @author Jorge Castillo Pérez
+ */
+class StressTaskScheduler implements Handler.Callback {
+
+  interface Listener {
+
+    void onTaskStarted(int position);
+
+    void onTaskFinished(int position);
+  }
+
+  private static final int MSG_FINISH_TASK = 1;
+
+  private final Handler handler = new Handler(Looper.getMainLooper(), this);
+  private final Random random = new Random();
+  private final boolean[] running;
+  private final Listener listener;
+
+  private int runningCount;
+  private long finishedCount;
+  private int concurrency;
+  private int taskDuration;
+  private boolean started;
+
+  StressTaskScheduler(int taskCount, Listener listener) {
+    this.running = new boolean[taskCount];
+    this.listener = listener;
+  }
+
+  void start() {
+    started = true;
+    fill();
+  }
+
+  /**
+   * Drops every running task without notifying it.
+   */
+  void stop() {
+    started = false;
+    handler.removeMessages(MSG_FINISH_TASK);
+    for (int i = 0; i < running.length; i++) {
+      running[i] = false;
+    }
+    runningCount = 0;
+  }
+
+  /**
+   * Lowering it does not cancel anything, running tasks just are not replaced once finished.
+   */
+  void setConcurrency(int concurrency) {
+    this.concurrency = Math.min(concurrency, running.length);
+    fill();
+  }
+
+  void setTaskDuration(int taskDuration) {
+    this.taskDuration = taskDuration;
+  }
+
+  boolean isRunning(int position) {
+    return running[position];
+  }
+
+  int getRunningCount() {
+    return runningCount;
+  }
+
+  long getFinishedCount() {
+    return finishedCount;
+  }
+
+  @Override public boolean handleMessage(Message msg) {
+    int position = msg.arg1;
+    running[position] = false;
+    runningCount--;
+    finishedCount++;
+    listener.onTaskFinished(position);
+    fill();
+    return true;
+  }
+
+  private void fill() {
+    while (started && runningCount < concurrency) {
+      startTask();
+    }
+  }
+
+  private void startTask() {
+    int position;
+    do {
+      position = random.nextInt(running.length);
+    } while (running[position]);
+
+    running[position] = true;
+    runningCount++;
+    int duration = taskDuration / 2 + random.nextInt(taskDuration + 1);
+    handler.sendMessageDelayed(handler.obtainMessage(MSG_FINISH_TASK, position, 0), duration);
+    listener.onTaskStarted(position);
+  }
+}
@@ -15,24 +15,135 @@
  */
 package com.github.jorgecastilloprz.fabprogresscircle.executor;
 
+import android.annotation.TargetApi;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.Choreographer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * {@link MainThread} implementation. Will make
  * interactor Callbacks able to get executed in the Android UI thread*
+ *
+ * Posts coming from any thread are collected into a lock-free queue, and all of them are drained
+ * in one single pass on the next frame, so many interactors finishing together do not become one
+ * main thread message (and maybe one layout pass) each. Pre JellyBean devices have no
+ * Choreographer, so the pass is scheduled with a plain handler message there.
  * * *
  * Created by jorge on 11/01/15.
  */
 public class MainThreadImpl implements MainThread {
 
-  private Handler handler;
+  /**
+   * Notified on the main thread after every drain pass.
+   */
+  public interface DrainListener {
+
+    void onCallbacksDrained(int count);
+  }
+
+  private static MainThreadImpl instance;
+
+  private final Queue<Runnable> pendingCallbacks = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+  private final Handler handler;
+  private final FrameScheduler frameScheduler;
+
+  private volatile DrainListener drainListener;
+  private volatile int lastDrainCount;
+
+  private final Runnable drainRunnable = new Runnable() {
+    @Override public void run() {
+      drain();
+    }
+  };
 
-  public MainThreadImpl() {
+  private final Runnable scheduleOnFrameRunnable = new Runnable() {
+    @Override public void run() {
+      frameScheduler.scheduleDrain();
+    }
+  };
+
+  public static synchronized MainThreadImpl getInstance() {
+    if (instance == null) {
+      instance = new MainThreadImpl();
+    }
+    return instance;
+  }
+
+  private MainThreadImpl() {
     this.handler = new Handler(Looper.getMainLooper());
+    this.frameScheduler = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+        ? new ChoreographerScheduler() : null;
   }
 
   @Override public void post(Runnable runnable) {
-    handler.post(runnable);
+    pendingCallbacks.offer(runnable);
+    if (drainScheduled.compareAndSet(false, true)) {
+      scheduleDrain();
+    }
+  }
+
+  public void setDrainListener(DrainListener drainListener) {
+    this.drainListener = drainListener;
+  }
+
+  /**
+   * @return number of callbacks executed in the last frame that had any.
+   */
+  public int getLastDrainCount() {
+    return lastDrainCount;
+  }
+
+  private void scheduleDrain() {
+    if (frameScheduler == null) {
+      handler.post(drainRunnable);
+    } else if (Looper.myLooper() == Looper.getMainLooper()) {
+      frameScheduler.scheduleDrain();
+    } else {
+      handler.post(scheduleOnFrameRunnable);
+    }
+  }
+
+  /**
+   * The flag is cleared before draining, so posts done by the callbacks themselves (or by other
+   * threads meanwhile) will schedule a new pass instead of getting lost.
+   */
+  private void drain() {
+    drainScheduled.set(false);
+    int count = 0;
+    Runnable callback;
+    while ((callback = pendingCallbacks.poll()) != null) {
+      callback.run();
+      count++;
+    }
+
+    if (count > 0) {
+      lastDrainCount = count;
+      DrainListener listener = drainListener;
+      if (listener != null) {
+        listener.onCallbacksDrained(count);
+      }
+    }
+  }
+
+  private interface FrameScheduler {
+
+    void scheduleDrain();
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  private final class ChoreographerScheduler implements FrameScheduler, Choreographer.FrameCallback {
+
+    @Override public void scheduleDrain() {
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override public void doFrame(long frameTimeNanos) {
+      drain();
+    }
   }
 }
@@ -15,14 +15,21 @@
  */
 package com.github.jorgecastilloprz.fabprogresscircle.executor;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Interactor dispatcher. Contains the initial executor setup.
  * Using {@link ThreadPoolExecutor} as the executor implementation.
+ *
+ * There is a single instance shared by the whole app. The work queue is bounded, so when every
+ * thread is busy and the queue is full new interactors get rejected instead of piling up. Queue
+ * depth, active threads and task latencies are exposed to be able to monitor it.
  * *
  * Created by jorge on 11/01/15.
  */
@@ -31,25 +38,104 @@ public class ThreadExecutor {
   private static final int CORE_POOL_SIZE = 3;
   private static final int MAX_POOL_SIZE = 5;
   private static final int KEEP_ALIVE_TIME = 120;
+  private static final int QUEUE_CAPACITY = 10;
   private static final TimeUnit TIME_UNIT = TimeUnit.SECONDS;
-  private static final BlockingQueue<Runnable> WORK_QUEUE = new LinkedBlockingQueue<>();
 
-  private ThreadPoolExecutor threadPoolExecutor;
+  private static ThreadExecutor instance;
+
+  private final BlockingQueue<Runnable> workQueue;
+  private final ThreadPoolExecutor threadPoolExecutor;
 
-  public ThreadExecutor() {
+  private final AtomicLong finishedTasks = new AtomicLong();
+  private final AtomicLong totalQueueLatencyNanos = new AtomicLong();
+  private final AtomicLong totalExecutionNanos = new AtomicLong();
+  private final AtomicLong rejectedTasks = new AtomicLong();
+
+  public static synchronized ThreadExecutor getInstance() {
+    if (instance == null) {
+      instance = new ThreadExecutor();
+    }
+    return instance;
+  }
+
+  private ThreadExecutor() {
+    workQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
     threadPoolExecutor =
         new ThreadPoolExecutor(CORE_POOL_SIZE, MAX_POOL_SIZE, KEEP_ALIVE_TIME, TIME_UNIT,
-            WORK_QUEUE);
+            workQueue, new ThreadPoolExecutor.AbortPolicy());
+    threadPoolExecutor.allowCoreThreadTimeOut(true);
   }
 
-  public void run(final Interactor interactor) {
+  /**
+   * Runs the interactor in a background thread. The returned future can be used to cancel it,
+   * which interrupts the interactor if it is already running.
+   *
+   * @throws RejectedExecutionException if the executor is saturated. Callers should back off and
+   * retry later, or tell the user.
+   */
+  public Future<?> run(final Interactor interactor) {
     if (interactor == null) {
       throw new IllegalArgumentException("Interactor must not be null");
     }
-    threadPoolExecutor.submit(new Runnable() {
-      @Override public void run() {
-        interactor.run();
-      }
-    });
+
+    final long submitTime = System.nanoTime();
+    try {
+      return threadPoolExecutor.submit(new Runnable() {
+        @Override public void run() {
+          long startTime = System.nanoTime();
+          totalQueueLatencyNanos.addAndGet(startTime - submitTime);
+          try {
+            interactor.run();
+          } finally {
+            totalExecutionNanos.addAndGet(System.nanoTime() - startTime);
+            finishedTasks.incrementAndGet();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejectedTasks.incrementAndGet();
+      throw e;
+    }
+  }
+
+  public void cancel(Future<?> interactorFuture) {
+    if (interactorFuture != null) {
+      interactorFuture.cancel(true);
+    }
+  }
+
+  public int getQueueDepth() {
+    return workQueue.size();
+  }
+
+  public int getActiveCount() {
+    return threadPoolExecutor.getActiveCount();
+  }
+
+  public long getFinishedTaskCount() {
+    return finishedTasks.get();
+  }
+
+  public long getRejectedTaskCount() {
+    return rejectedTasks.get();
+  }
+
+  /**
+   * Average time interactors spent waiting in the queue before getting a thread.
+   */
+  public long getAverageQueueLatencyMillis() {
+    return average(totalQueueLatencyNanos.get());
+  }
+
+  /**
+   * Average time interactors spent running.
+   */
+  public long getAverageExecutionMillis() {
+    return average(totalExecutionNanos.get());
+  }
+
+  private long average(long totalNanos) {
+    long finished = finishedTasks.get();
+    return finished == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos / finished);
   }
 }
@@ -29,19 +29,33 @@ public class MockAction implements Interactor {
 
   public MockAction(MockActionCallback callback) {
     this.callback = callback;
-    this.mainThread = new MainThreadImpl();
+    this.mainThread = MainThreadImpl.getInstance();
+  }
+
+  /**
+   * Lets a recreated activity take over the interactor still running for the previous one. Only
+   * call it from the main thread, the completion is delivered there.
+   */
+  public void setCallback(MockActionCallback callback) {
+    this.callback = callback;
   }
 
   @Override public void run() {
-    mockLoadingTime();
-    notifyActionComplete();
+    if (mockLoadingTime()) {
+      notifyActionComplete();
+    }
   }
 
-  private void mockLoadingTime() {
+  /**
+   * @return false if the interactor got cancelled while loading.
+   */
+  private boolean mockLoadingTime() {
     try {
       Thread.sleep(3000);
+      return true;
     } catch (InterruptedException e) {
-      //Empty
+      Thread.currentThread().interrupt();
+      return false;
     }
   }
 
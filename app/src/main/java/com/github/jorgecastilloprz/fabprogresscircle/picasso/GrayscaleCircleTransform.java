@@ -20,46 +20,83 @@ import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.ColorMatrix;
 import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import com.squareup.picasso.Transformation;
 
 /**
+ * Crops the center square of the source, desaturates it and masks it as a circle in one single
+ * draw, straight from the source bitmap into the output one. No intermediate cropped bitmap is
+ * created, and the paint, filter, matrix and canvas are reused across calls.
+ *
+ * The output bitmap can not come from a pool, as Picasso keeps it in its memory cache. Pass the
+ * output size to get it scaled in the same pass, and to get a cache key per size and config.
+ *
  * @author Jorge Castillo Pérez
  */
 public class GrayscaleCircleTransform implements Transformation {
-  @Override public Bitmap transform(Bitmap source) {
-    int size = Math.min(source.getWidth(), source.getHeight());
 
-    int x = (source.getWidth() - size) / 2;
-    int y = (source.getHeight() - size) / 2;
+  private static final int SOURCE_SIZE = 0;
+
+  private final int outputSize;
+  private final Bitmap.Config config;
+  private final String key;
+
+  private final Paint paint;
+  private final Matrix shaderMatrix = new Matrix();
+  private final Canvas canvas = new Canvas();
+
+  public GrayscaleCircleTransform() {
+    this(SOURCE_SIZE);
+  }
 
-    Bitmap squaredBitmap = Bitmap.createBitmap(source, x, y, size, size);
-    if (squaredBitmap != source) {
-      source.recycle();
-    }
+  public GrayscaleCircleTransform(int outputSize) {
+    this(outputSize, Bitmap.Config.ARGB_8888);
+  }
 
-    Bitmap bitmap = Bitmap.createBitmap(size, size, source.getConfig());
+  public GrayscaleCircleTransform(int outputSize, Bitmap.Config config) {
+    this.outputSize = outputSize;
+    this.config = config;
+    this.key = "grayscaleCircle(size=" + (outputSize == SOURCE_SIZE ? "source" : outputSize)
+        + ",config=" + config + ")";
 
     ColorMatrix colorMatrix = new ColorMatrix();
     colorMatrix.setSaturation(0);
-    ColorMatrixColorFilter filter = new ColorMatrixColorFilter(colorMatrix);
+    paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    paint.setColorFilter(new ColorMatrixColorFilter(colorMatrix));
+  }
+
+  /**
+   * Picasso may run transformations from several threads at once, and the drawing objects are
+   * shared, so calls are serialized.
+   */
+  @Override public synchronized Bitmap transform(Bitmap source) {
+    int sourceSize = Math.min(source.getWidth(), source.getHeight());
+    int size = outputSize == SOURCE_SIZE ? sourceSize : outputSize;
+
+    float x = (source.getWidth() - sourceSize) / 2f;
+    float y = (source.getHeight() - sourceSize) / 2f;
+    float scale = (float) size / sourceSize;
 
-    Canvas canvas = new Canvas(bitmap);
-    Paint paint = new Paint();
-    paint.setColorFilter(filter);
+    shaderMatrix.setTranslate(-x, -y);
+    shaderMatrix.postScale(scale, scale);
     BitmapShader shader =
-        new BitmapShader(squaredBitmap, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP);
+        new BitmapShader(source, BitmapShader.TileMode.CLAMP, BitmapShader.TileMode.CLAMP);
+    shader.setLocalMatrix(shaderMatrix);
     paint.setShader(shader);
-    paint.setAntiAlias(true);
 
+    Bitmap bitmap = Bitmap.createBitmap(size, size, config);
+    canvas.setBitmap(bitmap);
     float r = size / 2f;
     canvas.drawCircle(r, r, r, paint);
 
-    squaredBitmap.recycle();
+    canvas.setBitmap(null);
+    paint.setShader(null);
+    source.recycle();
     return bitmap;
   }
 
   @Override public String key() {
-    return "circle";
+    return key;
   }
 }
@@ -18,43 +18,108 @@ package com.github.jorgecastilloprz;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.Gravity;
+import android.view.View;
 import android.widget.FrameLayout;
 import com.github.jorgecastilloprz.completefab.CompleteFABListener;
 import com.github.jorgecastilloprz.completefab.CompleteFABView;
 import com.github.jorgecastilloprz.library.R;
 import com.github.jorgecastilloprz.listeners.FABProgressListener;
+import com.github.jorgecastilloprz.listeners.FABProgressStateListener;
 import com.github.jorgecastilloprz.progressarc.ArcListener;
+import com.github.jorgecastilloprz.progressarc.ArcOverlay;
 import com.github.jorgecastilloprz.progressarc.ProgressArcView;
+import com.github.jorgecastilloprz.tasks.BoundFutureTask;
+import com.github.jorgecastilloprz.tasks.BoundTask;
+import com.github.jorgecastilloprz.tasks.BoundTaskListener;
+import com.github.jorgecastilloprz.trace.FrameTraceRecorder;
+import com.github.jorgecastilloprz.trace.LibraryTrace;
+import com.github.jorgecastilloprz.utils.AnimationUtils;
 import com.github.jorgecastilloprz.utils.LibraryUtils;
+import com.github.jorgecastilloprz.utils.TimerWheel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This ViewGroup wraps your FAB, so it will insert a new child on top to draw the progress
  * arc around it.
  *
+ * Every public action is only applied from the states where it makes sense, and ignored from the
+ * rest of them, so redundant calls never restart any animation:
+ *
+ * <pre>
+ * IDLE --show()--> SHOWING --delay--> SPINNING --beginFinalAnimation()--> COMPLETING
+ * COMPLETING --> COMPLETED --reset delay (reusable)--> RESETTING --> IDLE
+ * SHOWING / SPINNING --hide()--> IDLE
+ * SHOWING --beginFinalAnimation()--> COMPLETING
+ * </pre>
+ *
+ * Like the support library ContentLoadingProgressBar, tasks finishing before the show delay never
+ * display the arc at all, and once displayed, the arc is not hidden until the minimum show time
+ * has passed, so it never just flickers on the screen.
+ *
+ * Components with an id save their state, so the arc keeps spinning from where it was after a
+ * configuration change.
+ *
  * @author Jorge Castillo Pérez
  */
-public class FABProgressCircle extends FrameLayout implements ArcListener, CompleteFABListener {
+public class FABProgressCircle extends FrameLayout
+    implements ArcListener, CompleteFABListener, BoundTaskListener {
 
-  private final int SIZE_NORMAL = 1;
-  private final int SIZE_MINI = 2;
+  public enum State {
+    IDLE, SHOWING, SPINNING, COMPLETING, COMPLETED, RESETTING;
+
+    final String traceName = "FABProgressCircle:" + name();
+  }
+
+  public static final int SIZE_NORMAL = 1;
+  public static final int SIZE_MINI = 2;
 
   private int arcColor;
+  private int[] arcColors;
   private int arcWidth;
   private int circleSize;
   private boolean roundedStroke;
   private boolean reusable;
+  private int showDelay = AnimationUtils.SHOW_SCALE_ANIM_DELAY;
+  private int resetDelay = CompleteFABView.RESET_DELAY;
+  private int minShowTime = AnimationUtils.MIN_SHOW_TIME;
 
   private CompleteFABView completeFABView;
   private Drawable completeIconDrawable;
 
   private boolean viewsAdded;
+  private int cachedFabSize;
+  private boolean childrenOccluded;
   private ProgressArcView progressArc;
+  private ArcOverlay arcOverlay;
   private FABProgressListener listener;
+  private FABProgressStateListener stateListener;
+  private BoundTask boundTask;
+  private FrameTraceRecorder frameTraceRecorder;
+
+  private State state = State.IDLE;
+  private long shownAt;
+  private int segmentCount;
+  private SavedState pendingRestore;
+  private final Rect fabShadowInsets = new Rect();
+
+  private final TimerWheel.Entry hideEntry = new TimerWheel.Entry(new Runnable() {
+    @Override public void run() {
+      hideNow();
+    }
+  });
 
   public FABProgressCircle(Context context) {
     super(context);
@@ -81,18 +146,32 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
     setupInitialAttributes(attrs);
   }
 
+  /**
+   * Components created from code get the same defaults as the ones inflated with no attributes.
+   */
   private void setupInitialAttributes(AttributeSet attrs) {
+    arcColor = getResources().getColor(R.color.fab_orange_dark);
+    arcWidth = getResources().getDimensionPixelSize(R.dimen.progress_arc_stroke_width);
+    circleSize = SIZE_NORMAL;
     if (attrs != null) {
       TypedArray attrArray = getAttributes(attrs);
       try {
-        arcColor = attrArray.getColor(R.styleable.FABProgressCircle_arcColor,
-            getResources().getColor(R.color.fab_orange_dark));
-        arcWidth = attrArray.getDimensionPixelSize(R.styleable.FABProgressCircle_arcWidth,
-            getResources().getDimensionPixelSize(R.dimen.progress_arc_stroke_width));
+        arcColor = attrArray.getColor(R.styleable.FABProgressCircle_arcColor, arcColor);
+        int arcColorsId = attrArray.getResourceId(R.styleable.FABProgressCircle_arcColors, 0);
+        if (arcColorsId != 0) {
+          arcColors = getResources().getIntArray(arcColorsId);
+        }
+        arcWidth = attrArray.getDimensionPixelSize(R.styleable.FABProgressCircle_arcWidth, arcWidth);
         completeIconDrawable = attrArray.getDrawable(R.styleable.FABProgressCircle_finalIcon);
-        circleSize = attrArray.getInt(R.styleable.FABProgressCircle_circleSize, 1);
+        circleSize = attrArray.getInt(R.styleable.FABProgressCircle_circleSize, circleSize);
         roundedStroke = attrArray.getBoolean(R.styleable.FABProgressCircle_roundedStroke, false);
         reusable = attrArray.getBoolean(R.styleable.FABProgressCircle_reusable, false);
+        showDelay = attrArray.getInt(R.styleable.FABProgressCircle_showDelay,
+            AnimationUtils.SHOW_SCALE_ANIM_DELAY);
+        resetDelay =
+            attrArray.getInt(R.styleable.FABProgressCircle_resetDelay, CompleteFABView.RESET_DELAY);
+        minShowTime = attrArray.getInt(R.styleable.FABProgressCircle_minShowTime,
+            AnimationUtils.MIN_SHOW_TIME);
       } finally {
         attrArray.recycle();
       }
@@ -103,18 +182,150 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
     return getContext().obtainStyledAttributes(attrs, R.styleable.FABProgressCircle, 0, 0);
   }
 
+  /**
+   * The arc and completion views are created as soon as the FAB is there: right after inflation,
+   * or on the first measure for components created from code. They are added in layout, so no
+   * extra layout pass is requested for them.
+   */
   @Override protected void onFinishInflate() {
     super.onFinishInflate();
     checkChildCount();
+    addChildViews();
   }
 
+  private void addChildViews() {
+    LibraryTrace.beginSection("FABProgressCircle#addChildViews");
+    setClipChildren(false);
+    setupFab();
+    addArcView();
+    addCompleteFabView();
+    viewsAdded = true;
+    LibraryTrace.endSection();
+
+    if (pendingRestore != null) {
+      restoreState(pendingRestore);
+      pendingRestore = null;
+    }
+  }
+
+  /**
+   * Everything is measured in a single pass from the real FAB size, which is cached. The arc and
+   * completion views only get their layout params updated when it changes.
+   */
   @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    LibraryTrace.beginSection("FABProgressCircle#onMeasure");
     if (!viewsAdded) {
-      addArcView();
-      setupFab();
-      viewsAdded = true;
+      addChildViews();
+    }
+
+    View fab = getChildAt(0);
+    measureChildWithMargins(fab, widthMeasureSpec, 0, heightMeasureSpec, 0);
+    int fabSize = measureFabSize(fab);
+    if (fabSize != cachedFabSize) {
+      cachedFabSize = fabSize;
+      updateChildSizes();
+    }
+
+    int arcSize = getArcSize();
+    int exactArcSpec = MeasureSpec.makeMeasureSpec(arcSize, MeasureSpec.EXACTLY);
+    progressArc.measure(exactArcSpec, exactArcSpec);
+    if (completeFABView.getVisibility() != GONE) {
+      int exactFabSpec = MeasureSpec.makeMeasureSpec(fabSize, MeasureSpec.EXACTLY);
+      completeFABView.measure(exactFabSpec, exactFabSpec);
+    }
+
+    MarginLayoutParams fabParams = (MarginLayoutParams) fab.getLayoutParams();
+    int contentWidth = Math.max(arcSize,
+        fab.getMeasuredWidth() + fabParams.leftMargin + fabParams.rightMargin);
+    int contentHeight = Math.max(arcSize,
+        fab.getMeasuredHeight() + fabParams.topMargin + fabParams.bottomMargin);
+    int width = Math.max(contentWidth + getPaddingLeft() + getPaddingRight(),
+        getSuggestedMinimumWidth());
+    int height = Math.max(contentHeight + getPaddingTop() + getPaddingBottom(),
+        getSuggestedMinimumHeight());
+    setMeasuredDimension(resolveSize(width, widthMeasureSpec),
+        resolveSize(height, heightMeasureSpec));
+    LibraryTrace.endSection();
+  }
+
+  /**
+   * FutureSimple FABs include their shadow into their size, so their standard size is used. Other
+   * FABs drawing a compat shadow before Lollipop, like the design library one, report it as the
+   * padding of their background, which is left out.
+   */
+  private int measureFabSize(View fab) {
+    fabShadowInsets.setEmpty();
+    if (LibraryUtils.isAFutureSimpleFAB(fab)) {
+      return getFabDimension();
+    }
+
+    Drawable background = fab.getBackground();
+    if (background == null || !background.getPadding(fabShadowInsets)) {
+      fabShadowInsets.setEmpty();
+    }
+    int width = fab.getMeasuredWidth() - fabShadowInsets.left - fabShadowInsets.right;
+    int height = fab.getMeasuredHeight() - fabShadowInsets.top - fabShadowInsets.bottom;
+    return Math.min(width, height);
+  }
+
+  private void updateChildSizes() {
+    int arcSize = getArcSize();
+    LayoutParams arcParams = (LayoutParams) progressArc.getLayoutParams();
+    if (arcParams != null) {
+      arcParams.width = arcSize;
+      arcParams.height = arcSize;
+    }
+    LayoutParams completeParams = (LayoutParams) completeFABView.getLayoutParams();
+    completeParams.width = cachedFabSize;
+    completeParams.height = cachedFabSize;
+  }
+
+  private int getArcSize() {
+    return cachedFabSize + arcWidth;
+  }
+
+  /**
+   * Every child is centered, honoring its margins. In overlay mode the arc view is not a child,
+   * but it gets positioned too for the overlay to know where to draw it.
+   */
+  @Override protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+    int width = right - left - getPaddingLeft() - getPaddingRight();
+    int height = bottom - top - getPaddingTop() - getPaddingBottom();
+    for (int i = 0; i < getChildCount(); i++) {
+      View child = getChildAt(i);
+      if (child.getVisibility() != GONE) {
+        layoutCentered(child, width, height);
+        if (i > 0) {
+          centerOnFabCircle(child);
+        }
+      }
+    }
+    if (progressArc.getParent() != this) {
+      layoutCentered(progressArc, width, height);
+      centerOnFabCircle(progressArc);
+    }
+  }
+
+  /**
+   * Compat shadows are usually larger at the bottom, so the circle of the FAB is not centered in
+   * its bounds.
+   */
+  private void centerOnFabCircle(View child) {
+    child.offsetLeftAndRight((fabShadowInsets.left - fabShadowInsets.right) / 2);
+    child.offsetTopAndBottom((fabShadowInsets.top - fabShadowInsets.bottom) / 2);
+  }
+
+  private void layoutCentered(View child, int width, int height) {
+    int childWidth = child.getMeasuredWidth();
+    int childHeight = child.getMeasuredHeight();
+    int childLeft = getPaddingLeft() + (width - childWidth) / 2;
+    int childTop = getPaddingTop() + (height - childHeight) / 2;
+    if (child.getLayoutParams() instanceof MarginLayoutParams) {
+      MarginLayoutParams params = (MarginLayoutParams) child.getLayoutParams();
+      childLeft += params.leftMargin - params.rightMargin;
+      childTop += params.topMargin - params.bottomMargin;
     }
+    child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
   }
 
   /**
@@ -122,14 +333,69 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
    * (if it exists).
    */
   private void addArcView() {
-    setClipChildren(false);
     progressArc = new ProgressArcView(getContext(), arcColor, arcWidth, roundedStroke);
     progressArc.setInternalListener(this);
-    addView(progressArc,
-        new FrameLayout.LayoutParams(getFabDimension() + arcWidth, getFabDimension() + arcWidth,
-            Gravity.CENTER));
+    progressArc.setShowDelay(showDelay);
+    if (arcColors != null) {
+      progressArc.setArcColors(arcColors);
+    }
+    progressArc.setFrameTraceRecorder(frameTraceRecorder);
+    attachArcView();
+  }
+
+  private void attachArcView() {
+    if (arcOverlay != null) {
+      progressArc.setOverlay(arcOverlay, this);
+      if (getWindowToken() != null) {
+        progressArc.onHostAttachedToWindow();
+      }
+    } else {
+      progressArc.setOverlay(null, null);
+      addViewInLayout(progressArc, 1,
+          new FrameLayout.LayoutParams(getArcSize(), getArcSize(), Gravity.CENTER), true);
+    }
+  }
+
+  private void detachArcView() {
+    if (progressArc.getParent() == this) {
+      removeViewInLayout(progressArc);
+    } else {
+      progressArc.onHostDetachedFromWindow();
+    }
+  }
+
+  /**
+   * Draws the arc from the given overlay instead of from an arc view of its own. Meant for lists
+   * with lots of components sharing the same overlay. Pass null to draw it from its own view
+   * again. It can be switched in any state, the arc keeps playing from where it was.
+   */
+  public void setArcOverlay(ArcOverlay arcOverlay) {
+    if (this.arcOverlay == arcOverlay) {
+      return;
+    }
+
+    if (progressArc != null) {
+      detachArcView();
+    }
+    this.arcOverlay = arcOverlay;
+    if (progressArc != null) {
+      attachArcView();
+      requestLayout();
+      invalidate();
+    }
+  }
+
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (progressArc != null) {
+      progressArc.onHostAttachedToWindow();
+    }
   }
 
+  /**
+   * The gravity is kept for the FrameLayout params to stay meaningful, but children are always
+   * centered by this view.
+   */
   private void setupFab() {
     FrameLayout.LayoutParams fabParams = (FrameLayout.LayoutParams) getChildAt(0).getLayoutParams();
     fabParams.gravity = Gravity.CENTER;
@@ -154,24 +420,345 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
     this.listener = listener;
   }
 
+  public void attachStateListener(FABProgressStateListener stateListener) {
+    this.stateListener = stateListener;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  ProgressArcView getProgressArc() {
+    return progressArc;
+  }
+
+  CompleteFABView getCompleteFABView() {
+    return completeFABView;
+  }
+
+  /**
+   * Every state but IDLE is traced as an async slice.
+   */
+  private void setState(State newState) {
+    State previous = state;
+    state = newState;
+    if (LibraryTrace.isEnabled()) {
+      int cookie = System.identityHashCode(this);
+      if (previous != State.IDLE) {
+        LibraryTrace.endAsyncSection(previous.traceName, cookie);
+      }
+      if (newState != State.IDLE) {
+        LibraryTrace.beginAsyncSection(newState.traceName, cookie);
+      }
+    }
+    if (stateListener != null) {
+      stateListener.onStateChanged(previous, newState);
+    }
+  }
+
+  /**
+   * Like ContentLoadingProgressBar, a hide still waiting for the minimum show time is cancelled,
+   * and the arc already displayed keeps spinning for the new task.
+   */
   public void show() {
+    if (cancelPendingHide()) {
+      if (segmentCount > 0) {
+        segmentCount = 0;
+        progressArc.showSpinning(0);
+      }
+      return;
+    }
+    if (state != State.IDLE) {
+      return;
+    }
+    setState(State.SHOWING);
+    segmentCount = 0;
     progressArc.show();
   }
 
+  /**
+   * Shows a single ring split into one segment per task, instead of the indeterminate arc. Use it
+   * to track many concurrent jobs with just one component. Every task starts with no progress.
+   * A pending hide is cancelled like in {@link #show()}, and the ring starts over with the new
+   * tasks.
+   *
+   * @throws IllegalArgumentException if there is not at least one task.
+   */
+  public void showSegmented(int taskCount) {
+    if (taskCount < 1) {
+      throw new IllegalArgumentException("Task count must be greater than zero");
+    }
+    if (cancelPendingHide()) {
+      segmentCount = taskCount;
+      progressArc.showSegmentsNow(taskCount);
+      return;
+    }
+    if (state != State.IDLE) {
+      return;
+    }
+    setState(State.SHOWING);
+    segmentCount = taskCount;
+    progressArc.showSegments(taskCount);
+  }
+
+  /**
+   * Updates the progress (from 0 to 1) of every task at once. The whole ring gets redrawn just
+   * once, so prefer this one over per task updates when many of them change together.
+   */
+  public void updateSegments(float[] progress) {
+    progressArc.updateSegments(progress);
+  }
+
+  public void updateSegment(int taskIndex, float progress) {
+    progressArc.updateSegment(taskIndex, progress);
+  }
+
   /**
    * Method exposed to allow the user to hide the animation if something went wrong (like an error
    * in the async task running.
    */
   public void hide() {
+    if (state == State.SHOWING) {
+      hideNow();
+    } else if (state == State.SPINNING && !hideEntry.isScheduled()) {
+      long remaining = minShowTime - (SystemClock.uptimeMillis() - shownAt);
+      if (remaining > 0) {
+        TimerWheel.getInstance().schedule(hideEntry, remaining);
+      } else {
+        hideNow();
+      }
+    }
+  }
+
+  private boolean cancelPendingHide() {
+    return TimerWheel.getInstance().cancel(hideEntry);
+  }
+
+  private void hideNow() {
+    TimerWheel.getInstance().cancel(hideEntry);
+    setState(State.IDLE);
     progressArc.stop();
   }
 
+  /**
+   * If the arc is still waiting for its show delay, it does not get displayed at all and the FAB
+   * goes straight to its completed aspect. Ignored if the arc is already getting hidden.
+   */
   public void beginFinalAnimation() {
-    progressArc.requestCompleteAnimation();
+    if (state == State.SHOWING) {
+      progressArc.stop();
+      setState(State.COMPLETING);
+      displayColorTransformAnimation();
+    } else if (state == State.SPINNING && !hideEntry.isScheduled()) {
+      setState(State.COMPLETING);
+      progressArc.requestCompleteAnimation();
+    }
+  }
+
+  /**
+   * Shows the progress arc and runs the given task into the executor. The final animation will be
+   * played when the task returns, and the arc will get hidden if it throws or gets cancelled. The
+   * task is cancelled and the arc hidden if this view gets detached before it finishes.
+   *
+   * @throws RejectedExecutionException if the executor rejects the task. Nothing is shown then,
+   * and the task previously bound keeps running.
+   */
+  public <V> Future<V> bind(Executor executor, Callable<V> task) {
+    BoundTask boundTask = new BoundTask(this);
+    return execute(executor, new BoundFutureTask<>(task, boundTask), boundTask);
+  }
+
+  /**
+   * Same as {@link #bind(Executor, Callable)} for tasks that do not return any result.
+   */
+  public Future<Void> bind(Executor executor, Runnable task) {
+    BoundTask boundTask = new BoundTask(this);
+    return execute(executor, new BoundFutureTask<Void>(task, null, boundTask), boundTask);
+  }
+
+  /**
+   * The task is handed to the executor before replacing the bound task or showing anything, so a
+   * rejected one leaves everything as it was.
+   */
+  private <V> Future<V> execute(Executor executor, BoundFutureTask<V> futureTask,
+      BoundTask task) {
+    try {
+      executor.execute(futureTask);
+    } catch (RejectedExecutionException e) {
+      task.cancel();
+      throw e;
+    }
+    replaceBoundTask(task);
+    show();
+    return futureTask;
+  }
+
+  /**
+   * Shows the progress arc for a task already running (callback based APIs, or futures not
+   * created by this component). Call {@link BoundTask#complete()} or {@link BoundTask#fail()}
+   * from any thread when it finishes. If a future is given, it will get cancelled when this view
+   * gets detached.
+   */
+  public BoundTask bind(Future<?> future) {
+    BoundTask task = new BoundTask(this).withFuture(future);
+    replaceBoundTask(task);
+    show();
+    return task;
+  }
+
+  private void replaceBoundTask(BoundTask task) {
+    cancelBoundTask();
+    boundTask = task;
+  }
+
+  /**
+   * Returns whether there was a bound task to cancel.
+   */
+  private boolean cancelBoundTask() {
+    if (boundTask == null) {
+      return false;
+    }
+    boundTask.cancel();
+    boundTask = null;
+    return true;
+  }
+
+  @Override public void onBoundTaskFinished(BoundTask task, boolean success) {
+    if (task != boundTask) {
+      return;
+    }
+
+    boundTask = null;
+    if (success) {
+      beginFinalAnimation();
+    } else {
+      hide();
+    }
+  }
+
+  /**
+   * A pending hide is not worth waiting for once the view is off the screen. The arc of a bound
+   * task cancelled here is hidden too, as nothing would ever complete or hide it otherwise.
+   */
+  @Override protected void onDetachedFromWindow() {
+    boolean taskCancelled = cancelBoundTask();
+    if (hideEntry.isScheduled()
+        || taskCancelled && (state == State.SHOWING || state == State.SPINNING)) {
+      hideNow();
+    }
+    if (progressArc != null) {
+      progressArc.onHostDetachedFromWindow();
+    }
+    super.onDetachedFromWindow();
+  }
+
+  /**
+   * Only the phase, the time the arc has been spinning and the reset countdown are saved. An arc
+   * about to be hidden is saved as idle.
+   */
+  @Override protected Parcelable onSaveInstanceState() {
+    SavedState savedState = new SavedState(super.onSaveInstanceState());
+    savedState.state = hideEntry.isScheduled() ? State.IDLE : state;
+    savedState.segmentCount = segmentCount;
+    if (state == State.SPINNING) {
+      savedState.elapsedMillis = SystemClock.uptimeMillis() - shownAt;
+    }
+    savedState.resetRemainingMillis =
+        completeFABView != null ? completeFABView.getRemainingResetDelay() : -1;
+    return savedState;
+  }
+
+  /**
+   * Components created from code get their views on the first measure, so the state is kept
+   * until then.
+   */
+  @Override protected void onRestoreInstanceState(Parcelable parcelable) {
+    if (!(parcelable instanceof SavedState)) {
+      super.onRestoreInstanceState(parcelable);
+      return;
+    }
+
+    SavedState savedState = (SavedState) parcelable;
+    super.onRestoreInstanceState(savedState.getSuperState());
+    if (viewsAdded) {
+      restoreState(savedState);
+    } else {
+      pendingRestore = savedState;
+    }
+  }
+
+  /**
+   * The state is restored into the arc and completion views already built, which carry on from
+   * the saved point without playing their transitions again. A completion still running when
+   * saved is restored as finished, and a reset as idle. Listeners get a single transition from
+   * IDLE to the restored state.
+   */
+  private void restoreState(SavedState savedState) {
+    if (state != State.IDLE) {
+      return;
+    }
+
+    switch (savedState.state) {
+      case SHOWING:
+        if (savedState.segmentCount > 0) {
+          showSegmented(savedState.segmentCount);
+        } else {
+          show();
+        }
+        break;
+      case SPINNING:
+        restoreSpinning(savedState);
+        break;
+      case COMPLETING:
+      case COMPLETED:
+        restoreCompleted(savedState);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void restoreSpinning(SavedState savedState) {
+    segmentCount = savedState.segmentCount;
+    shownAt = SystemClock.uptimeMillis() - savedState.elapsedMillis;
+    if (segmentCount > 0) {
+      progressArc.showSegmentsNow(segmentCount);
+    } else {
+      progressArc.showSpinning(savedState.elapsedMillis);
+    }
+    setState(State.SPINNING);
+  }
+
+  /**
+   * The final listener is only notified if it was not before saving.
+   */
+  private void restoreCompleted(SavedState savedState) {
+    ViewCompat.setElevation(completeFABView, ViewCompat.getElevation(getChildAt(0)) + 1);
+    completeFABView.showCompleted();
+    setState(State.COMPLETED);
+    setChildrenOccluded(true);
+    if (isReusable()) {
+      progressArc.reset();
+      completeFABView.reset(
+          savedState.resetRemainingMillis >= 0 ? savedState.resetRemainingMillis : resetDelay);
+    }
+    if (savedState.state == State.COMPLETING && listener != null) {
+      listener.onFABProgressAnimationEnd();
+    }
+  }
+
+  @Override public void onArcShown() {
+    if (state != State.SHOWING) {
+      return;
+    }
+    shownAt = SystemClock.uptimeMillis();
+    setState(State.SPINNING);
   }
 
   @Override public void onArcAnimationComplete() {
-    displayColorTransformAnimation();
+    if (state == State.COMPLETING) {
+      displayColorTransformAnimation();
+    }
   }
 
   /**
@@ -187,7 +774,6 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
    * are in a pre lollipop device.
    */
   private void displayColorTransformAnimation() {
-    addCompleteFabView();
     ViewCompat.setElevation(completeFABView, ViewCompat.getElevation(getChildAt(0)) + 1);
     completeFABView.animate(progressArc.getScaleDownAnimator());
   }
@@ -195,17 +781,53 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
   private void addCompleteFabView() {
     completeFABView = new CompleteFABView(getContext(), completeIconDrawable, arcColor);
     completeFABView.attachListener(this);
-    addView(completeFABView,
-        new FrameLayout.LayoutParams(getFabDimension(), getFabDimension(), Gravity.CENTER));
+    completeFABView.setResetDelay(resetDelay);
+    completeFABView.setFrameTraceRecorder(frameTraceRecorder);
+    addViewInLayout(completeFABView, -1,
+        new FrameLayout.LayoutParams(cachedFabSize, cachedFabSize, Gravity.CENTER), true);
   }
 
   @Override public void onCompleteFABAnimationEnd() {
+    setState(State.COMPLETED);
+    setChildrenOccluded(true);
     doReusableReset();
     if (listener != null) {
       listener.onFABProgressAnimationEnd();
     }
   }
 
+  @Override public void onCompleteFABResetStart() {
+    setState(State.RESETTING);
+    setChildrenOccluded(false);
+  }
+
+  @Override public void onCompleteFABResetEnd() {
+    setState(State.IDLE);
+  }
+
+  /**
+   * While the completion view is fully opaque, the FAB and the arc below are completely covered
+   * by it. There is no need to draw them on every frame until it fades out.
+   *
+   * Pre lollipop FAB shadows are drawn by the FAB background and go past the completion view,
+   * which casts no shadow there, so the FAB is only skipped from Lollipop on, where the completion
+   * view casts an equivalent elevation shadow.
+   */
+  private void setChildrenOccluded(boolean occluded) {
+    if (childrenOccluded != occluded) {
+      childrenOccluded = occluded;
+      invalidate();
+    }
+  }
+
+  @Override protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+    if (childrenOccluded && child != completeFABView
+        && (child != getChildAt(0) || Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)) {
+      return false;
+    }
+    return super.drawChild(canvas, child, drawingTime);
+  }
+
   private void doReusableReset() {
     if (isReusable()) {
       progressArc.reset();
@@ -217,6 +839,140 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
     return reusable;
   }
 
+  /**
+   * Same as the {@code app:reusable} attribute, for components created from code.
+   */
+  public void setReusable(boolean reusable) {
+    this.reusable = reusable;
+  }
+
+  /**
+   * Same as the {@code app:arcColor} attribute. The arc paint and the tint of the completion view
+   * are updated in place, so it just gets redrawn. A completion view not showing picks the new
+   * tint up once it shows, so only the arc is redrawn then.
+   */
+  public void setArcColor(int arcColor) {
+    if (this.arcColor == arcColor) {
+      return;
+    }
+    this.arcColor = arcColor;
+    if (viewsAdded) {
+      progressArc.setArcColor(arcColor);
+      completeFABView.setArcColor(arcColor);
+    }
+  }
+
+  /**
+   * Same as the {@code app:arcWidth} attribute, in pixels. The arc view gets resized, so this is
+   * the only style setter laying the component out again.
+   */
+  public void setArcWidth(int arcWidth) {
+    if (this.arcWidth == arcWidth) {
+      return;
+    }
+    this.arcWidth = arcWidth;
+    if (viewsAdded) {
+      progressArc.setArcWidth(arcWidth);
+      updateChildSizes();
+      requestLayout();
+    }
+  }
+
+  /**
+   * Same as the {@code app:roundedStroke} attribute.
+   */
+  public void setRoundedStroke(boolean roundedStroke) {
+    if (this.roundedStroke == roundedStroke) {
+      return;
+    }
+    this.roundedStroke = roundedStroke;
+    if (viewsAdded) {
+      progressArc.setRoundedStroke(roundedStroke);
+    }
+  }
+
+  /**
+   * Same as the {@code app:circleSize} attribute, {@link #SIZE_NORMAL} or {@link #SIZE_MINI}. Only
+   * FABs including their shadow into their size (FutureSimple ones) are sized from it, so it
+   * only lays the component out again for them.
+   */
+  public void setCircleSize(int circleSize) {
+    if (this.circleSize == circleSize) {
+      return;
+    }
+    this.circleSize = circleSize;
+    if (viewsAdded && LibraryUtils.isAFutureSimpleFAB(getChildAt(0))) {
+      requestLayout();
+    }
+  }
+
+  /**
+   * Same as the {@code app:finalIcon} attribute. Pass null to get back to the default done icon.
+   */
+  public void setFinalIcon(Drawable finalIcon) {
+    if (completeIconDrawable == finalIcon) {
+      return;
+    }
+    completeIconDrawable = finalIcon;
+    if (viewsAdded) {
+      completeFABView.setIconDrawable(finalIcon);
+    }
+  }
+
+  /**
+   * Same as the {@code app:arcColors} attribute. The arc gets painted with a gradient going
+   * through all the given colors, instead of the solid arc color. Pass null to go back to it.
+   */
+  public void setArcColors(int[] arcColors) {
+    this.arcColors = arcColors;
+    if (progressArc != null) {
+      progressArc.setArcColors(arcColors);
+    }
+  }
+
+  /**
+   * Records every frame drawn by the arc and the completion view into the given recorder, to be
+   * dumped and analyzed later with {@link com.github.jorgecastilloprz.trace.FrameTraceDecoder}.
+   * Many components can share the same recorder. Pass null to stop recording.
+   */
+  public void setFrameTraceRecorder(FrameTraceRecorder frameTraceRecorder) {
+    this.frameTraceRecorder = frameTraceRecorder;
+    if (progressArc != null) {
+      progressArc.setFrameTraceRecorder(frameTraceRecorder);
+      completeFABView.setFrameTraceRecorder(frameTraceRecorder);
+    }
+  }
+
+  /**
+   * Same as the {@code app:showDelay} attribute. Milliseconds to wait since {@link #show()} is
+   * called until the arc gets displayed.
+   */
+  public void setShowDelay(int showDelay) {
+    this.showDelay = showDelay;
+    if (progressArc != null) {
+      progressArc.setShowDelay(showDelay);
+    }
+  }
+
+  /**
+   * Same as the {@code app:minShowTime} attribute. Minimum milliseconds the arc stays on the
+   * screen once displayed, even if it gets hidden before.
+   */
+  public void setMinShowTime(int minShowTime) {
+    this.minShowTime = minShowTime;
+  }
+
+  /**
+   * Same as the {@code app:resetDelay} attribute. Milliseconds a reusable component stays in its
+   * completed state before getting reset.
+   */
+  public void setResetDelay(int resetDelay) {
+    this.resetDelay = resetDelay;
+    if (completeFABView != null) {
+      completeFABView.setResetDelay(resetDelay);
+    }
+  }
+
   private int getFabDimension() {
     if (circleSize == SIZE_NORMAL) {
       return getResources().getDimensionPixelSize(R.dimen.fab_size_normal);
@@ -224,4 +980,43 @@ public class FABProgressCircle extends FrameLayout implements ArcListener, Compl
       return getResources().getDimensionPixelSize(R.dimen.fab_size_mini);
     }
   }
-}
\ No newline at end of file
+
+  static class SavedState extends BaseSavedState {
+
+    State state = State.IDLE;
+    int segmentCount;
+    long elapsedMillis;
+    long resetRemainingMillis = -1;
+
+    SavedState(Parcelable superState) {
+      super(superState);
+    }
+
+    private SavedState(Parcel in) {
+      super(in);
+      state = State.values()[in.readInt()];
+      segmentCount = in.readInt();
+      elapsedMillis = in.readLong();
+      resetRemainingMillis = in.readLong();
+    }
+
+    @Override public void writeToParcel(Parcel out, int flags) {
+      super.writeToParcel(out, flags);
+      out.writeInt(state.ordinal());
+      out.writeInt(segmentCount);
+      out.writeLong(elapsedMillis);
+      out.writeLong(resetRemainingMillis);
+    }
+
+    public static final Parcelable.Creator<SavedState> CREATOR =
+        new Parcelable.Creator<SavedState>() {
+          @Override public SavedState createFromParcel(Parcel in) {
+            return new SavedState(in);
+          }
+
+          @Override public SavedState[] newArray(int size) {
+            return new SavedState[size];
+          }
+        };
+  }
+}
@@ -21,4 +21,8 @@ package com.github.jorgecastilloprz.completefab;
 public interface CompleteFABListener {
 
   void onCompleteFABAnimationEnd();
+
+  void onCompleteFABResetStart();
+
+  void onCompleteFABResetEnd();
 }
@@ -17,33 +17,77 @@ package com.github.jorgecastilloprz.completefab;
 
 import android.animation.Animator;
 import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Outline;
 import android.graphics.PorterDuff;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.SystemClock;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewAnimationUtils;
+import android.view.ViewOutlineProvider;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import com.github.jorgecastilloprz.library.R;
+import com.github.jorgecastilloprz.trace.FrameTraceRecorder;
+import com.github.jorgecastilloprz.trace.LibraryTrace;
+import com.github.jorgecastilloprz.trace.TraceSliceListener;
+import com.github.jorgecastilloprz.utils.HardwareLayerListener;
+import com.github.jorgecastilloprz.utils.TimerWheel;
+import com.github.jorgecastilloprz.utils.ViewPropertyAnimation;
 
 /**
  * This view represents the fake FAB that will be displayed at the end of the animation.
  *
+ * On Lollipop and above the completion is a circular reveal, with the icon scaled by a listener
+ * free property animator. Both run on the RenderThread, so the completion keeps playing smoothly
+ * even if the main thread gets busy (with the work done by the final listener, for instance).
+ * Older versions, or views not hardware accelerated, fade the view in from the main thread.
+ *
  * @author Jorge Castillo Pérez
  */
 public class CompleteFABView extends FrameLayout {
 
-  private final int RESET_DELAY = 3000;
+  public static final int RESET_DELAY = 3000;
+
+  private static final int COMPLETION_DURATION = 300;
+  private static final int ICON_SCALE_DURATION = 250;
 
   private Drawable iconDrawable;
   private int arcColor;
+  private Drawable background;
+  private boolean tintPending;
   private CompleteFABListener listener;
-  private boolean viewsAdded;
+  private int contentSize;
+
+  private ViewPropertyAnimation fadeInAnimation;
+  private ViewPropertyAnimation iconScaleAnimation;
+  private ViewPropertyAnimation fadeOutAnimation;
+  private AnimatorSet completeAnimatorSet;
+  private Animator lastProgressArcAnimator;
+  private Animator.AnimatorListener completeListener;
+  private Animator.AnimatorListener completeTraceListener;
+  private final Interpolator revealInterpolator = new AccelerateDecelerateInterpolator();
+  private final Interpolator iconScaleInterpolator = new LinearInterpolator();
+
+  private FrameTraceRecorder frameTraceRecorder;
+
+  private long resetDelay = RESET_DELAY;
+  private long resetAt;
+  private boolean resetPendingOnAttach;
+
+  private final TimerWheel.Entry resetEntry = new TimerWheel.Entry(new Runnable() {
+    @Override public void run() {
+      fadeOutAnimation.getAnimator().start();
+    }
+  });
 
   public CompleteFABView(Context context, Drawable iconDrawable, int arcColor) {
     super(context);
@@ -56,12 +100,50 @@ public class CompleteFABView extends FrameLayout {
     this.listener = listener;
   }
 
+  /**
+   * Everything not depending on the size is set up here, so nothing requests a layout from the
+   * measure pass. This view stays invisible (but measured) until the completion animation starts,
+   * so showing it does not need any layout pass either.
+   */
   private void init() {
+    LibraryTrace.beginSection("CompleteFAB#inflate");
     inflate(getContext(), R.layout.complete_fab, this);
+    contentSize = (int) getResources().getDimension(R.dimen.fab_content_size);
+    tintCompleteFabWithArcColor();
+    setIcon();
+    setupAnimations();
+    setVisibility(View.INVISIBLE);
+    LibraryTrace.endSection();
+  }
+
+  /**
+   * The icon scales while the root fades in, so only the icon gets a hardware layer then. A layer
+   * on the root would need to be redrawn on every frame of the icon scale.
+   */
+  private void setupAnimations() {
+    View root = getChildAt(0);
+    View icon = findViewById(R.id.completeFabIcon);
+
+    fadeInAnimation = new ViewPropertyAnimation(root, ViewPropertyAnimation.Property.ALPHA,
+        COMPLETION_DURATION, new AccelerateDecelerateInterpolator()).setRange(0, 1);
+
+    iconScaleAnimation = new ViewPropertyAnimation(icon, ViewPropertyAnimation.Property.SCALE,
+        ICON_SCALE_DURATION, new LinearInterpolator()).setRange(0, 1);
+    iconScaleAnimation.getAnimator().addListener(new HardwareLayerListener(icon));
+
+    fadeOutAnimation = new ViewPropertyAnimation(root, ViewPropertyAnimation.Property.ALPHA, 300,
+        new AccelerateDecelerateInterpolator()).setRange(1, 0);
+    ValueAnimator fadeOutAnimator = fadeOutAnimation.getAnimator();
+    fadeOutAnimator.addListener(new HardwareLayerListener(root));
+    fadeOutAnimator.addListener(getInverseAnimatorListener());
+    fadeOutAnimator.addListener(new TraceSliceListener("CompleteFAB:reset"));
+
+    completeListener = getAnimatorListener();
+    completeTraceListener = new TraceSliceListener("CompleteFAB:completion");
   }
 
   private void tintCompleteFabWithArcColor() {
-    Drawable background = getResources().getDrawable(R.drawable.oval_complete);
+    background = getResources().getDrawable(R.drawable.oval_complete);
     background.setColorFilter(arcColor, PorterDuff.Mode.SRC_ATOP);
     findViewById(R.id.completeFabRoot).setBackgroundDrawable(background);
   }
@@ -72,52 +154,123 @@ public class CompleteFABView extends FrameLayout {
         iconDrawable != null ? iconDrawable : getResources().getDrawable(R.drawable.ic_done));
   }
 
-  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-    if (!viewsAdded) {
-      setupContentSize();
-      tintCompleteFabWithArcColor();
+  /**
+   * Only the color filter of the tinted background changes, which redraws it. While the completion
+   * is not showing, the filter is left as it is until this view gets visible, so nothing is
+   * redrawn for a view nobody sees.
+   */
+  public void setArcColor(int arcColor) {
+    if (this.arcColor != arcColor) {
+      this.arcColor = arcColor;
+      if (getVisibility() == View.VISIBLE) {
+        background.setColorFilter(arcColor, PorterDuff.Mode.SRC_ATOP);
+      } else {
+        tintPending = true;
+      }
+    }
+  }
+
+  @Override protected void onVisibilityChanged(View changedView, int visibility) {
+    super.onVisibilityChanged(changedView, visibility);
+    if (tintPending && changedView == this && visibility == View.VISIBLE) {
+      tintPending = false;
+      background.setColorFilter(arcColor, PorterDuff.Mode.SRC_ATOP);
+    }
+  }
+
+  /**
+   * Pass null to get back to the default done icon. The icon view keeps its size, so nothing gets
+   * laid out again.
+   */
+  public void setIconDrawable(Drawable iconDrawable) {
+    if (this.iconDrawable != iconDrawable) {
+      this.iconDrawable = iconDrawable;
       setIcon();
-      viewsAdded = true;
     }
   }
 
-  private void setupContentSize() {
-    int contentSize = (int) getResources().getDimension(R.dimen.fab_content_size);
-    int mContentPadding = (getChildAt(0).getMeasuredWidth() - contentSize) / 2;
-    getChildAt(0).setPadding(mContentPadding, mContentPadding, mContentPadding, mContentPadding);
+  /**
+   * The content padding is computed from the given size before measuring the content, so it is
+   * applied in the same pass.
+   */
+  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    setupContentPadding(MeasureSpec.getSize(widthMeasureSpec));
+    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
   }
 
-  public void animate(AnimatorSet progressArcAnimator) {
-    animate(progressArcAnimator, false);
+  private void setupContentPadding(int size) {
+    int contentPadding = Math.max(0, (size - contentSize) / 2);
+    View root = getChildAt(0);
+    if (root.getPaddingLeft() != contentPadding) {
+      root.setPadding(contentPadding, contentPadding, contentPadding, contentPadding);
+    }
   }
 
-  private void animate(AnimatorSet progressArcAnimator, boolean inverse) {
-    ValueAnimator completeFabAnim = ObjectAnimator.ofFloat(getChildAt(0), "alpha", inverse ? 0 : 1);
-    completeFabAnim.setDuration(300).setInterpolator(new AccelerateDecelerateInterpolator());
+  public void animate(Animator progressArcAnimator) {
+    if (canReveal()) {
+      animateWithReveal(progressArcAnimator);
+      return;
+    }
 
-    View icon = findViewById(R.id.completeFabIcon);
+    if (completeAnimatorSet == null || progressArcAnimator != lastProgressArcAnimator) {
+      buildCompleteAnimatorSet(progressArcAnimator);
+    }
+    completeAnimatorSet.start();
+  }
 
-    ValueAnimator iconScaleAnimX = ObjectAnimator.ofFloat(icon, "scaleX", 0, 1);
-    ValueAnimator iconScaleAnimY = ObjectAnimator.ofFloat(icon, "scaleY", 0, 1);
+  /**
+   * Reveal animators can only be started on attached, hardware accelerated views.
+   */
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  private boolean canReveal() {
+    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+        && isAttachedToWindow()
+        && isHardwareAccelerated();
+  }
 
-    Interpolator iconAnimInterpolator = new LinearInterpolator();
-    iconScaleAnimX.setDuration(250).setInterpolator(iconAnimInterpolator);
-    iconScaleAnimY.setDuration(250).setInterpolator(iconAnimInterpolator);
+  /**
+   * Reveal animators cannot be started twice, so a new one is created for every completion. The
+   * icon scale has no listener or end action, as those would take it back to the main thread.
+   * The arc scale down is still the given animator, as it hides the arc once finished.
+   */
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  private void animateWithReveal(Animator progressArcAnimator) {
+    View root = getChildAt(0);
+    View icon = findViewById(R.id.completeFabIcon);
+    root.setAlpha(1);
+    icon.setScaleX(0);
+    icon.setScaleY(0);
+    setVisibility(View.VISIBLE);
 
-    AnimatorSet animatorSet = new AnimatorSet();
-    if (inverse) {
-      animatorSet.playTogether(completeFabAnim);
-    } else {
-      animatorSet.playTogether(completeFabAnim, progressArcAnimator, iconScaleAnimX,
-          iconScaleAnimY);
-    }
+    int centerX = getWidth() / 2;
+    int centerY = getHeight() / 2;
+    Animator reveal = ViewAnimationUtils.createCircularReveal(root, centerX, centerY, 0,
+        (float) Math.hypot(centerX, centerY));
+    reveal.setDuration(COMPLETION_DURATION);
+    reveal.setInterpolator(revealInterpolator);
+    reveal.addListener(completeListener);
+    reveal.addListener(completeTraceListener);
+    reveal.start();
 
-    animatorSet.addListener(inverse ? getInverseAnimatorListener() : getAnimatorListener());
-    if (inverse) {
-      animatorSet.setStartDelay(RESET_DELAY);
-    }
-    animatorSet.start();
+    icon.animate()
+        .scaleX(1)
+        .scaleY(1)
+        .setDuration(ICON_SCALE_DURATION)
+        .setInterpolator(iconScaleInterpolator)
+        .start();
+    progressArcAnimator.start();
+  }
+
+  /**
+   * The completion set is built once and reused, unless the arc scale down animator changes.
+   */
+  private void buildCompleteAnimatorSet(Animator progressArcAnimator) {
+    lastProgressArcAnimator = progressArcAnimator;
+    completeAnimatorSet = new AnimatorSet();
+    completeAnimatorSet.playTogether(fadeInAnimation.getAnimator(), progressArcAnimator,
+        iconScaleAnimation.getAnimator());
+    completeAnimatorSet.addListener(completeListener);
+    completeAnimatorSet.addListener(completeTraceListener);
   }
 
   private Animator.AnimatorListener getAnimatorListener() {
@@ -127,6 +280,7 @@ public class CompleteFABView extends FrameLayout {
       }
 
       @Override public void onAnimationEnd(Animator animator) {
+        setCastsShadow(true);
         if (listener != null) {
           listener.onCompleteFABAnimationEnd();
         }
@@ -143,10 +297,17 @@ public class CompleteFABView extends FrameLayout {
   private Animator.AnimatorListener getInverseAnimatorListener() {
     return new Animator.AnimatorListener() {
       @Override public void onAnimationStart(Animator animator) {
+        setCastsShadow(false);
+        if (listener != null) {
+          listener.onCompleteFABResetStart();
+        }
       }
 
       @Override public void onAnimationEnd(Animator animator) {
-        setVisibility(View.GONE);
+        setVisibility(View.INVISIBLE);
+        if (listener != null) {
+          listener.onCompleteFABResetEnd();
+        }
       }
 
       @Override public void onAnimationCancel(Animator animator) {
@@ -157,8 +318,110 @@ public class CompleteFABView extends FrameLayout {
     };
   }
 
+  /**
+   * Records every drawn frame into the given recorder, with the content alpha as the sweep. Pass
+   * null to stop recording.
+   */
+  public void setFrameTraceRecorder(FrameTraceRecorder frameTraceRecorder) {
+    this.frameTraceRecorder = frameTraceRecorder;
+  }
+
+  @Override protected void dispatchDraw(Canvas canvas) {
+    LibraryTrace.beginSection("CompleteFAB#draw");
+    if (frameTraceRecorder == null) {
+      super.dispatchDraw(canvas);
+    } else {
+      long start = System.nanoTime();
+      super.dispatchDraw(canvas);
+      int phase = fadeOutAnimation.getAnimator().isRunning() ? FrameTraceRecorder.PHASE_RESET
+          : FrameTraceRecorder.PHASE_COMPLETION;
+      frameTraceRecorder.record(start, phase, 0, getChildAt(0).getAlpha(),
+          System.nanoTime() - start);
+    }
+    LibraryTrace.endSection();
+  }
+
+  public void setResetDelay(long resetDelay) {
+    this.resetDelay = resetDelay;
+  }
+
+  /**
+   * The fade out starts after the reset delay. The deadline is kept by the shared
+   * {@link TimerWheel} instead of a delayed animator per view.
+   */
   public void reset() {
-    animate(null, true);
+    reset(resetDelay);
+  }
+
+  /**
+   * Same as {@link #reset()}, but the fade out starts after the given delay.
+   */
+  public void reset(long delay) {
+    resetAt = SystemClock.uptimeMillis() + delay;
+    TimerWheel.getInstance().schedule(resetEntry, delay);
+  }
+
+  /**
+   * @return the milliseconds left until the fade out starts, or -1 if no reset is pending. A
+   * reset paused while detached counts as pending with the full delay, as that is what it gets
+   * once attached again.
+   */
+  public long getRemainingResetDelay() {
+    if (resetEntry.isScheduled()) {
+      return Math.max(0, resetAt - SystemClock.uptimeMillis());
+    }
+    return resetPendingOnAttach ? resetDelay : -1;
+  }
+
+  /**
+   * Displays the completed aspect right away, with no transition. Used to restore a saved state.
+   */
+  public void showCompleted() {
+    getChildAt(0).setAlpha(1);
+    View icon = findViewById(R.id.completeFabIcon);
+    icon.setScaleX(1);
+    icon.setScaleY(1);
+    setVisibility(View.VISIBLE);
+    setCastsShadow(true);
+  }
+
+  @Override protected void onDetachedFromWindow() {
+    resetPendingOnAttach = TimerWheel.getInstance().cancel(resetEntry);
+    super.onDetachedFromWindow();
+  }
+
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (resetPendingOnAttach) {
+      resetPendingOnAttach = false;
+      reset();
+    }
+  }
+
+  /**
+   * From Lollipop on, once this view is opaque the original FAB below is not drawn anymore, and
+   * its elevation shadow goes away with it. From that moment this view casts an equivalent oval
+   * shadow by itself. Pre lollipop the FAB keeps being drawn below, shadow included, as this view
+   * cannot cast any shadow there.
+   */
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  private void setCastsShadow(boolean castsShadow) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+      setOutlineProvider(castsShadow ? OvalOutlineProvider.INSTANCE : null);
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  private static class OvalOutlineProvider extends ViewOutlineProvider {
+
+    /**
+     * Only loaded from Lollipop on, where the provider class exists.
+     */
+    static final OvalOutlineProvider INSTANCE = new OvalOutlineProvider();
+
+    @Override public void getOutline(View view, Outline outline) {
+      outline.setOval(0, 0, view.getWidth(), view.getHeight());
+    }
   }
 
   /**
@@ -22,5 +22,10 @@ package com.github.jorgecastilloprz.progressarc;
  */
 public interface ArcListener {
 
+  /**
+   * The show delay is over and the arc is visible.
+   */
+  void onArcShown();
+
   void onArcAnimationComplete();
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.progressarc;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws the progress arcs of many FABProgressCircles from a single view, instead of having one
+ * arc view per component. Useful for lists with lots of them: the components do not need to
+ * measure, lay out and composite any arc view, and every visible arc is drawn in one batch.
+ *
+ * Place it on top of the list, covering it (the arcs are clipped to its bounds, not to the list
+ * ones), and hand it to every component through {@code FABProgressCircle.setArcOverlay()}.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public class ArcOverlay extends View {
+
+  private final List<ProgressArcView> arcs = new ArrayList<>();
+  private final List<View> hosts = new ArrayList<>();
+  private final int[] overlayLocation = new int[2];
+  private final int[] hostLocation = new int[2];
+
+  public ArcOverlay(Context context) {
+    super(context);
+    init();
+  }
+
+  public ArcOverlay(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    init();
+  }
+
+  public ArcOverlay(Context context, AttributeSet attrs, int defStyleAttr) {
+    super(context, attrs, defStyleAttr);
+    init();
+  }
+
+  private void init() {
+    setClickable(false);
+    setFocusable(false);
+  }
+
+  void register(ProgressArcView arc, View host) {
+    if (!arcs.contains(arc)) {
+      arcs.add(arc);
+      hosts.add(host);
+      invalidate();
+    }
+  }
+
+  void unregister(ProgressArcView arc) {
+    int index = arcs.indexOf(arc);
+    if (index >= 0) {
+      arcs.remove(index);
+      hosts.remove(index);
+      invalidate();
+    }
+  }
+
+  /**
+   * Every arc is drawn at the position of its host component, with the alpha and scale its arc
+   * view would have. The alpha is applied through a layer, as the drawable is shared with the arc
+   * view and must be left untouched for it. The overlay keeps redrawing itself while any arc is visible, so fades and
+   * scales are played without the arc views being attached.
+   */
+  @Override protected void onDraw(Canvas canvas) {
+    getLocationInWindow(overlayLocation);
+    boolean anyVisible = false;
+
+    for (int i = 0; i < arcs.size(); i++) {
+      ProgressArcView arc = arcs.get(i);
+      View host = hosts.get(i);
+      if (arc.getAlpha() == 0 || !host.isShown()) {
+        continue;
+      }
+
+      host.getLocationInWindow(hostLocation);
+      int saveCount = canvas.save();
+      canvas.translate(hostLocation[0] - overlayLocation[0] + arc.getLeft(),
+          hostLocation[1] - overlayLocation[1] + arc.getTop());
+      canvas.scale(arc.getScaleX(), arc.getScaleY(), arc.getWidth() / 2f, arc.getHeight() / 2f);
+      ProgressArcDrawable drawable = arc.getArcDrawable();
+      if (arc.getAlpha() < 1) {
+        float stroke = drawable.getStrokeWidth();
+        canvas.saveLayerAlpha(-stroke, -stroke, arc.getWidth() + stroke, arc.getHeight() + stroke,
+            (int) (arc.getAlpha() * 255),
+            Canvas.HAS_ALPHA_LAYER_SAVE_FLAG | Canvas.CLIP_TO_LAYER_SAVE_FLAG);
+      }
+      drawable.draw(canvas);
+      canvas.restoreToCount(saveCount);
+      anyVisible = true;
+    }
+
+    if (anyVisible) {
+      ViewCompat.postInvalidateOnAnimation(this);
+    }
+  }
+
+  /**
+   * Touches go through to the list below.
+   */
+  @Override public boolean dispatchTouchEvent(MotionEvent event) {
+    return false;
+  }
+}
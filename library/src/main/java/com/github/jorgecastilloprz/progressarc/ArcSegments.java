@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.progressarc;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * Holds the progress of N concurrent tasks drawn as segments of a single ring. Every segment gets
+ * the same slice of the circle, and its filled portion depends on the task progress (0..1).
+ *
+ * All the segments are accumulated into one single {@link Path}, so the whole ring can be drawn
+ * with one draw call. The path is only rebuilt when progress or bounds change, never per frame.
+ *
+ * @author Jorge Castillo Pérez
+ */
+final class ArcSegments {
+
+  private static final float START_ANGLE = -90f;
+  private static final float GAP_ANGLE = 4f;
+  private static final float MAX_GAP_RATIO = 0.25f;
+
+  private final Path path = new Path();
+  private float[] progress = new float[0];
+  private int count;
+  private boolean dirty;
+
+  void setCount(int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Segment count must be greater than zero");
+    }
+
+    if (progress.length < count) {
+      progress = new float[count];
+    } else {
+      for (int i = 0; i < progress.length; i++) {
+        progress[i] = 0;
+      }
+    }
+    this.count = count;
+    dirty = true;
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  /**
+   * Applies every task progress at once. Values beyond the segment count are ignored.
+   */
+  void update(float[] values) {
+    int size = Math.min(values.length, count);
+    for (int i = 0; i < size; i++) {
+      progress[i] = Math.max(0f, Math.min(values[i], 1f));
+    }
+    dirty = true;
+  }
+
+  void update(int index, float value) {
+    if (index < 0 || index >= count) {
+      return;
+    }
+    progress[index] = Math.max(0f, Math.min(value, 1f));
+    dirty = true;
+  }
+
+  void invalidate() {
+    dirty = true;
+  }
+
+  Path getPath(RectF bounds) {
+    if (dirty) {
+      rebuildPath(bounds);
+      dirty = false;
+    }
+    return path;
+  }
+
+  /**
+   * Gaps shrink with the segments once they get small, so every segment keeps most of its slice
+   * no matter how many tasks there are.
+   */
+  private void rebuildPath(RectF bounds) {
+    path.reset();
+    float segmentAngle = 360f / count;
+    float gap = count > 1 ? Math.min(GAP_ANGLE, segmentAngle * MAX_GAP_RATIO) : 0;
+    float maxSweep = segmentAngle - gap;
+
+    for (int i = 0; i < count; i++) {
+      float sweep = maxSweep * progress[i];
+      if (sweep > 0) {
+        path.addArc(bounds, START_ANGLE + i * segmentAngle + gap / 2, sweep);
+      }
+    }
+  }
+}
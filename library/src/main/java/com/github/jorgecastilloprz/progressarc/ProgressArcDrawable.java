@@ -19,14 +19,21 @@ import android.animation.Animator;
 import android.animation.ValueAnimator;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.SweepGradient;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
 import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
 import com.github.jorgecastilloprz.progressarc.animations.ArcAnimationFactory;
+import com.github.jorgecastilloprz.trace.FrameTraceRecorder;
+import com.github.jorgecastilloprz.trace.LibraryTrace;
+import com.github.jorgecastilloprz.trace.TraceSliceListener;
 
 import static com.github.jorgecastilloprz.utils.AnimationUtils.getAnimatedFraction;
 
@@ -34,11 +41,21 @@ import static com.github.jorgecastilloprz.utils.AnimationUtils.getAnimatedFracti
  * This view is used to draw the progress circle animated arc
  * Canvas and angles will be our best friends here.
  *
+ * It can be used standalone in any view able to hold a drawable. Drawables created from the same
+ * {@link ConstantState} share their stroke configuration and paint, and each one of them keeps
+ * its own animation state. Call {@link #mutate()} before changing alpha or color filter if the
+ * state is shared.
+ *
+ * The arc can also be painted with a color gradient through {@link #setColors(int[])}. The
+ * gradient shader is only built when bounds or colors change, and it is rotated with the arc by
+ * updating its local matrix on every frame, so it costs the same per frame as a solid color.
+ *
  * @author Jorge Castillo Pérez
  */
-final class ProgressArcDrawable extends Drawable implements Animatable {
+public class ProgressArcDrawable extends Drawable implements Animatable {
 
   private final RectF arcBounds = new RectF();
+  private final ArcSegments segments = new ArcSegments();
 
   private float currentSweepAngle;
   private float currentRotationAngleOffset;
@@ -49,34 +66,36 @@ final class ProgressArcDrawable extends Drawable implements Animatable {
   private ValueAnimator growAnim;
   private ValueAnimator shrinkAnim;
   private ValueAnimator completeAnim;
+  private final Interpolator spinInterpolator = new LinearInterpolator();
+  private final Interpolator completeInterpolator = new DecelerateInterpolator();
 
   private boolean animationPlaying;
   private boolean growing;
   private boolean completeAnimOnNextCycle;
+  private boolean segmented;
 
+  private ArcState arcState;
   private Paint paint;
+  private boolean mutated;
+
+  private SweepGradient gradient;
+  private int[] gradientColors;
+  private final Matrix gradientMatrix = new Matrix();
 
-  private float strokeWidth;
-  private int arcColor;
   private int minSweepAngle;
   private int maxSweepAngle;
 
   private ArcListener internalListener;
+  private FrameTraceRecorder frameTraceRecorder;
 
-  ProgressArcDrawable(float strokeWidth, int arcColor, boolean roundedStroke) {
-    this.strokeWidth = strokeWidth;
-    this.arcColor = arcColor;
-    initPaint(roundedStroke);
-    setupAnimations();
+  public ProgressArcDrawable(float strokeWidth, int arcColor, boolean roundedStroke) {
+    this(new ArcState(strokeWidth, arcColor, roundedStroke));
   }
 
-  private void initPaint(boolean roundedStroke) {
-    paint = new Paint();
-    paint.setAntiAlias(true);
-    paint.setStyle(Paint.Style.STROKE);
-    paint.setStrokeWidth(strokeWidth);
-    paint.setStrokeCap(roundedStroke ? Paint.Cap.ROUND : Paint.Cap.BUTT);
-    paint.setColor(arcColor);
+  private ProgressArcDrawable(ArcState arcState) {
+    this.arcState = arcState;
+    this.paint = arcState.paint;
+    setupAnimations();
   }
 
   private void setupAnimations() {
@@ -88,6 +107,10 @@ final class ProgressArcDrawable extends Drawable implements Animatable {
     setupGrowAnimation();
     setupShrinkAnimation();
     setupCompleteAnimation();
+
+    growAnim.addListener(new TraceSliceListener("ProgressArc:grow"));
+    shrinkAnim.addListener(new TraceSliceListener("ProgressArc:shrink"));
+    completeAnim.addListener(new TraceSliceListener("ProgressArc:complete"));
   }
 
   private void setupRotateAnimation() {
@@ -183,17 +206,19 @@ final class ProgressArcDrawable extends Drawable implements Animatable {
           @Override public void onAnimationStart(Animator animation) {
             cancelled = false;
             growing = true;
-            rotateAnim.setInterpolator(new DecelerateInterpolator());
+            rotateAnim.setInterpolator(completeInterpolator);
             rotateAnim.setDuration(ArcAnimationFactory.COMPLETE_ROTATE_DURATION);
           }
 
           @Override public void onAnimationEnd(Animator animation) {
-            if (!cancelled) {
-              stop();
+            if (cancelled) {
+              return;
             }
 
-            completeAnim.removeListener(this);
-            internalListener.onArcAnimationComplete();
+            stop();
+            if (internalListener != null) {
+              internalListener.onArcAnimationComplete();
+            }
           }
 
           @Override public void onAnimationCancel(Animator animation) {
@@ -206,19 +231,78 @@ final class ProgressArcDrawable extends Drawable implements Animatable {
   }
 
   @Override public void draw(Canvas canvas) {
+    LibraryTrace.beginSection("ProgressArc#draw");
+    if (frameTraceRecorder == null) {
+      drawArc(canvas);
+    } else {
+      long start = System.nanoTime();
+      drawArc(canvas);
+      frameTraceRecorder.record(start, getTracePhase(), getStartAngle(), currentSweepAngle,
+          System.nanoTime() - start);
+    }
+    LibraryTrace.endSection();
+  }
+
+  private void drawArc(Canvas canvas) {
+    if (gradientColors != arcState.colors) {
+      updateGradient();
+    }
+    if (gradient != null) {
+      paint.setShader(gradient);
+    }
+
+    if (segmented) {
+      canvas.drawPath(segments.getPath(arcBounds), paint);
+      return;
+    }
+
+    if (gradient != null) {
+      gradientMatrix.setRotate(currentRotationAngle, arcBounds.centerX(), arcBounds.centerY());
+      gradient.setLocalMatrix(gradientMatrix);
+    }
+    canvas.drawArc(arcBounds, getStartAngle(), currentSweepAngle, false, paint);
+  }
+
+  /**
+   * Angles are in degrees, as passed to {@link Canvas#drawArc}. The start angle is not
+   * normalized.
+   */
+  float getStartAngle() {
     float startAngle = currentRotationAngle - currentRotationAngleOffset;
-    float sweepAngle = currentSweepAngle;
     if (!growing) {
-      startAngle = startAngle + (360 - sweepAngle);
+      startAngle = startAngle + (360 - currentSweepAngle);
+    }
+    return startAngle;
+  }
+
+  float getSweepAngle() {
+    return currentSweepAngle;
+  }
+
+  private int getTracePhase() {
+    if (!animationPlaying) {
+      return FrameTraceRecorder.PHASE_IDLE;
+    } else if (segmented) {
+      return FrameTraceRecorder.PHASE_SEGMENTS;
+    } else if (completeAnim.isRunning()) {
+      return FrameTraceRecorder.PHASE_COMPLETE;
     }
+    return growing ? FrameTraceRecorder.PHASE_GROW : FrameTraceRecorder.PHASE_SHRINK;
+  }
 
-    canvas.drawArc(arcBounds, startAngle, sweepAngle, false, paint);
+  /**
+   * Records every drawn frame into the given recorder. Pass null to stop recording.
+   */
+  public void setFrameTraceRecorder(FrameTraceRecorder frameTraceRecorder) {
+    this.frameTraceRecorder = frameTraceRecorder;
   }
 
+  /**
+   * Animators are built once per drawable and just started again, no matter how many times the
+   * drawable gets reset.
+   */
   public void reset() {
     stop();
-    resetProperties();
-    setupAnimations();
     start();
   }
 
@@ -234,28 +318,140 @@ final class ProgressArcDrawable extends Drawable implements Animatable {
     arcBounds.right = bounds.right;
     arcBounds.top = bounds.top;
     arcBounds.bottom = bounds.bottom;
+    segments.invalidate();
+    updateGradient();
+  }
+
+  /**
+   * Paints the arc with a gradient going through the given colors, instead of the solid arc
+   * color. The gradient wraps around the whole circle, and rotates with the arc. Pass null to get
+   * back to the solid color.
+   */
+  public void setColors(int[] colors) {
+    arcState.setColors(colors);
+    updateGradient();
+    invalidateSelf();
+  }
+
+  /**
+   * Stroke setters update the existing paint in place. Like the rest of the stroke configuration,
+   * they apply to every drawable sharing the same state unless this one was mutated. The alpha set
+   * through {@link #setAlpha(int)} is kept when the color changes.
+   */
+  public void setColor(int arcColor) {
+    if (arcState.arcColor != arcColor) {
+      arcState.arcColor = arcColor;
+      int alpha = paint.getAlpha();
+      paint.setColor(arcColor);
+      paint.setAlpha(alpha);
+      invalidateSelf();
+    }
+  }
+
+  public void setStrokeWidth(float strokeWidth) {
+    if (updateStrokeWidth(strokeWidth)) {
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Same as {@link #setStrokeWidth(float)} but with no invalidation, for hosts laying the drawable
+   * out again anyway. Returns whether the width changed.
+   */
+  boolean updateStrokeWidth(float strokeWidth) {
+    if (arcState.strokeWidth == strokeWidth) {
+      return false;
+    }
+    arcState.strokeWidth = strokeWidth;
+    paint.setStrokeWidth(strokeWidth);
+    return true;
   }
 
+  public void setRoundedStroke(boolean roundedStroke) {
+    if (arcState.roundedStroke != roundedStroke) {
+      arcState.roundedStroke = roundedStroke;
+      paint.setStrokeCap(roundedStroke ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Drawables sharing the same state could have changed the colors, so the shader is checked
+   * against them before drawing. The paint could be shared too, so the shader is set on it on
+   * every draw.
+   */
+  private void updateGradient() {
+    gradientColors = arcState.colors;
+    if (gradientColors == null) {
+      gradient = null;
+    } else {
+      gradient = new SweepGradient(arcBounds.centerX(), arcBounds.centerY(), gradientColors, null);
+    }
+    paint.setShader(gradient);
+  }
+
+  /**
+   * The offset moves forward on every grow / shrink cycle. It is kept normalized into [0, 360),
+   * as only its value modulo 360 matters for drawing, so the start angle keeps full float
+   * precision no matter how long the arc has been spinning.
+   */
   private void setGrowing() {
     growing = true;
-    currentRotationAngleOffset += minSweepAngle;
+    currentRotationAngleOffset = normalizeAngle(currentRotationAngleOffset + minSweepAngle);
   }
 
   private void setShrinking() {
     growing = false;
-    currentRotationAngleOffset = currentRotationAngleOffset + (360 - maxSweepAngle);
+    currentRotationAngleOffset =
+        normalizeAngle(currentRotationAngleOffset + (360 - maxSweepAngle));
+  }
+
+  static float normalizeAngle(float angle) {
+    float normalized = angle % 360f;
+    return normalized < 0 ? normalized + 360f : normalized;
   }
 
+  /**
+   * The complete animation slows the rotation down, so the spin configuration is restored here.
+   */
   @Override public void start() {
+    segmented = false;
     animationPlaying = true;
     resetProperties();
+    rotateAnim.setInterpolator(spinInterpolator);
+    rotateAnim.setDuration(ArcAnimationFactory.ROTATE_ANIMATOR_DURATION);
     rotateAnim.start();
     growAnim.start();
     invalidateSelf();
   }
 
+  /**
+   * Starts spinning as if {@link #start()} had been called the given milliseconds ago. The
+   * rotation, the grow / shrink cycle and the offset accumulated by the cycles already played are
+   * all computed, and the running animators are just moved forward to that point.
+   */
+  public void startAt(long elapsedMillis) {
+    start();
+    long cycleDuration = ArcAnimationFactory.SWEEP_ANIM_DURATION * 2;
+    long cycles = elapsedMillis / cycleDuration;
+    long cycleTime = elapsedMillis % cycleDuration;
+    int cycleOffset = (360 - maxSweepAngle + minSweepAngle) % 360;
+    currentRotationAngleOffset = normalizeAngle((cycles % 360) * cycleOffset);
+
+    rotateAnim.setCurrentPlayTime(elapsedMillis % ArcAnimationFactory.ROTATE_ANIMATOR_DURATION);
+    if (cycleTime < ArcAnimationFactory.SWEEP_ANIM_DURATION) {
+      growAnim.setCurrentPlayTime(cycleTime);
+    } else {
+      growAnim.cancel();
+      setShrinking();
+      shrinkAnim.start();
+      shrinkAnim.setCurrentPlayTime(cycleTime - ArcAnimationFactory.SWEEP_ANIM_DURATION);
+    }
+  }
+
   @Override public void stop() {
     animationPlaying = false;
+    completeAnimOnNextCycle = false;
     stopAnimators();
     invalidateSelf();
   }
@@ -267,13 +463,82 @@ final class ProgressArcDrawable extends Drawable implements Animatable {
     completeAnim.cancel();
   }
 
-  void requestCompleteAnimation(final ArcListener internalListener) {
-    if (!isRunning() || completeAnim.isRunning()) {
+  /**
+   * Switches the drawable to multi-segment mode. No indeterminate animators run in this mode, the
+   * ring only gets redrawn when the tasks progress is updated through {@link #updateSegments}.
+   */
+  public void startSegments(int taskCount) {
+    stopAnimators();
+    resetProperties();
+    segments.setCount(taskCount);
+    segmented = true;
+    animationPlaying = true;
+    invalidateSelf();
+  }
+
+  /**
+   * Bulk update for every task progress. Produces a single invalidation no matter how many tasks
+   * changed.
+   */
+  public void updateSegments(float[] progress) {
+    if (!segmented) {
+      return;
+    }
+    segments.update(progress);
+    invalidateSelf();
+  }
+
+  public void updateSegment(int index, float progress) {
+    if (!segmented) {
+      return;
+    }
+    segments.update(index, progress);
+    invalidateSelf();
+  }
+
+  int getColor() {
+    return paint.getColor();
+  }
+
+  float getStrokeWidth() {
+    return paint.getStrokeWidth();
+  }
+
+  boolean isRoundedStroke() {
+    return paint.getStrokeCap() == Paint.Cap.ROUND;
+  }
+
+  boolean isSegmented() {
+    return segmented;
+  }
+
+  /**
+   * The listener is always notified once the arc completes, even if the drawable was stopped in
+   * the meantime.
+   */
+  public void requestCompleteAnimation(final ArcListener internalListener) {
+    if (completeAnim.isRunning()) {
       return;
     }
 
     this.internalListener = internalListener;
-    startCompleteAnimationOnNextCycle();
+    if (segmented || !animationPlaying) {
+      completeNow();
+    } else {
+      startCompleteAnimationOnNextCycle();
+    }
+  }
+
+  /**
+   * There is no grow / shrink cycle to wait for in segmented mode, or if the arc is not spinning,
+   * so the complete animation starts straight away from the current start angle.
+   */
+  private void completeNow() {
+    segmented = false;
+    animationPlaying = true;
+    setGrowing();
+    completeAnim.start();
+    rotateAnim.start();
   }
 
   private void startCompleteAnimationOnNextCycle() {
@@ -295,14 +560,92 @@ final class ProgressArcDrawable extends Drawable implements Animatable {
   }
 
   @Override public void setAlpha(int alpha) {
-    paint.setAlpha(alpha);
+    if (paint.getAlpha() != alpha) {
+      paint.setAlpha(alpha);
+      invalidateSelf();
+    }
+  }
+
+  @Override public int getAlpha() {
+    return paint.getAlpha();
   }
 
   @Override public void setColorFilter(ColorFilter colorFilter) {
     paint.setColorFilter(colorFilter);
+    invalidateSelf();
   }
 
+  /**
+   * Just a stroke over a transparent background, so it is never opaque.
+   */
   @Override public int getOpacity() {
-    return PixelFormat.RGB_565;
+    return paint.getAlpha() == 0 ? PixelFormat.TRANSPARENT : PixelFormat.TRANSLUCENT;
+  }
+
+  @Override public ConstantState getConstantState() {
+    return arcState;
+  }
+
+  @Override public Drawable mutate() {
+    if (!mutated && super.mutate() == this) {
+      arcState = new ArcState(arcState);
+      paint = arcState.paint;
+      mutated = true;
+    }
+    return this;
+  }
+
+  /**
+   * Stroke configuration shared between drawables until mutated.
+   */
+  static final class ArcState extends ConstantState {
+
+    float strokeWidth;
+    int arcColor;
+    boolean roundedStroke;
+    final Paint paint;
+    int[] colors;
+
+    ArcState(float strokeWidth, int arcColor, boolean roundedStroke) {
+      this.strokeWidth = strokeWidth;
+      this.arcColor = arcColor;
+      this.roundedStroke = roundedStroke;
+      paint = new Paint();
+      paint.setAntiAlias(true);
+      paint.setStyle(Paint.Style.STROKE);
+      paint.setStrokeWidth(strokeWidth);
+      paint.setStrokeCap(roundedStroke ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+      paint.setColor(arcColor);
+    }
+
+    ArcState(ArcState original) {
+      this.strokeWidth = original.strokeWidth;
+      this.arcColor = original.arcColor;
+      this.roundedStroke = original.roundedStroke;
+      this.paint = new Paint(original.paint);
+      this.colors = original.colors;
+    }
+
+    /**
+     * The first color is repeated at the end, so the gradient has no seam.
+     */
+    void setColors(int[] newColors) {
+      if (newColors == null || newColors.length == 0) {
+        colors = null;
+        return;
+      }
+
+      colors = new int[newColors.length + 1];
+      System.arraycopy(newColors, 0, colors, 0, newColors.length);
+      colors[newColors.length] = newColors[0];
+    }
+
+    @Override public Drawable newDrawable() {
+      return new ProgressArcDrawable(this);
+    }
+
+    @Override public int getChangingConfigurations() {
+      return 0;
+    }
   }
 }
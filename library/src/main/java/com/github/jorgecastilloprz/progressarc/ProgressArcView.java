@@ -16,13 +16,17 @@
 package com.github.jorgecastilloprz.progressarc;
 
 import android.animation.Animator;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.drawable.Drawable;
+import android.view.View;
 import android.view.animation.DecelerateInterpolator;
-import android.widget.ProgressBar;
+import android.view.animation.LinearInterpolator;
+import com.github.jorgecastilloprz.trace.FrameTraceRecorder;
+import com.github.jorgecastilloprz.trace.TraceSliceListener;
+import com.github.jorgecastilloprz.utils.HardwareLayerListener;
+import com.github.jorgecastilloprz.utils.TimerWheel;
+import com.github.jorgecastilloprz.utils.ViewPropertyAnimation;
 
 import static com.github.jorgecastilloprz.utils.AnimationUtils.SHOW_SCALE_ANIM_DELAY;
 
@@ -30,27 +34,84 @@ import static com.github.jorgecastilloprz.utils.AnimationUtils.SHOW_SCALE_ANIM_D
  * This view contains the animated arc and depends totally on {@link ProgressArcDrawable} to get
  * its corresponding graphic aspect.
  *
+ * It hosts the drawable itself instead of being a ProgressBar, as ProgressBar starts and stops
+ * its drawable on its own when attached, detached or hidden. The drawable is only started and
+ * stopped by this view, following the component state.
+ *
  * @author Jorge Castillo Pérez
  */
-public final class ProgressArcView extends ProgressBar {
+public final class ProgressArcView extends View {
 
+  private ProgressArcDrawable arcDrawable;
   private ArcListener internalListener;
-  private int arcColor;
   private int arcWidth;
-  private boolean roundedStroke;
+
+  private ViewPropertyAnimation fadeOutAnimation;
+  private ViewPropertyAnimation scaleDownAnimation;
+
+  private long showDelay = SHOW_SCALE_ANIM_DELAY;
+  private boolean showPendingOnAttach;
+  private boolean revealPendingOnAttach;
+
+  private ArcOverlay overlay;
+  private View host;
+
+  private final TimerWheel.Entry showEntry = new TimerWheel.Entry(new Runnable() {
+    @Override public void run() {
+      setAlpha(1);
+      getDrawable().reset();
+      notifyArcShown();
+    }
+  });
+
+  private final TimerWheel.Entry revealEntry = new TimerWheel.Entry(new Runnable() {
+    @Override public void run() {
+      setAlpha(1);
+      notifyArcShown();
+    }
+  });
 
   public ProgressArcView(Context context, int arcColor, int arcWidth, boolean roundedStroke) {
     super(context);
-    this.arcColor = arcColor;
     this.arcWidth = arcWidth;
-    this.roundedStroke = roundedStroke;
     init(arcColor, arcWidth, roundedStroke);
   }
 
   public void init(int arcColor, int arcWidth, boolean roundedStroke) {
     setupInitialAlpha();
-    ProgressArcDrawable arcDrawable = new ProgressArcDrawable(arcWidth, arcColor, roundedStroke);
-    setIndeterminateDrawable(arcDrawable);
+    arcDrawable = new ProgressArcDrawable(arcWidth, arcColor, roundedStroke);
+    arcDrawable.setCallback(this);
+    setupAnimations();
+  }
+
+  /**
+   * Transitions are built once and started again every time they are needed.
+   */
+  private void setupAnimations() {
+    fadeOutAnimation =
+        new ViewPropertyAnimation(this, ViewPropertyAnimation.Property.ALPHA, 100,
+            new LinearInterpolator());
+    fadeOutAnimation.getAnimator().addListener(new HardwareLayerListener(this));
+
+    scaleDownAnimation =
+        new ViewPropertyAnimation(this, ViewPropertyAnimation.Property.SCALE, 150,
+            new DecelerateInterpolator());
+    scaleDownAnimation.getAnimator().addListener(new HardwareLayerListener(this));
+    scaleDownAnimation.getAnimator().addListener(new TraceSliceListener("ProgressArc:scaleDown"));
+    scaleDownAnimation.getAnimator().addListener(new Animator.AnimatorListener() {
+      @Override public void onAnimationStart(Animator animator) {
+      }
+
+      @Override public void onAnimationEnd(Animator animator) {
+        setupInitialAlpha();
+      }
+
+      @Override public void onAnimationCancel(Animator animator) {
+      }
+
+      @Override public void onAnimationRepeat(Animator animator) {
+      }
+    });
   }
 
   private void setupInitialAlpha() {
@@ -61,66 +122,198 @@ public final class ProgressArcView extends ProgressBar {
     this.internalListener = internalListener;
   }
 
+  private void notifyArcShown() {
+    if (internalListener != null) {
+      internalListener.onArcShown();
+    }
+  }
+
+  public void setArcColor(int arcColor) {
+    getDrawable().setColor(arcColor);
+  }
+
+  /**
+   * The arc view size depends on it, so the host is expected to lay it out again. The new size
+   * redraws the arc, so the drawable is not invalidated on its own.
+   */
+  public void setArcWidth(int arcWidth) {
+    this.arcWidth = arcWidth;
+    getDrawable().updateStrokeWidth(arcWidth);
+  }
+
+  public void setRoundedStroke(boolean roundedStroke) {
+    getDrawable().setRoundedStroke(roundedStroke);
+  }
+
+  public void setArcColors(int[] arcColors) {
+    getDrawable().setColors(arcColors);
+  }
+
+  public void setFrameTraceRecorder(FrameTraceRecorder frameTraceRecorder) {
+    getDrawable().setFrameTraceRecorder(frameTraceRecorder);
+  }
+
+  public void setShowDelay(long showDelay) {
+    this.showDelay = showDelay;
+  }
+
   public void show() {
-    postDelayed(new Runnable() {
-      @Override public void run() {
-        setAlpha(1);
-        getDrawable().reset();
-      }
-    }, SHOW_SCALE_ANIM_DELAY);
+    TimerWheel.getInstance().schedule(showEntry, showDelay);
   }
 
+  public void showSegments(final int taskCount) {
+    getDrawable().startSegments(taskCount);
+    TimerWheel.getInstance().schedule(revealEntry, showDelay);
+  }
+
+  public void updateSegments(float[] progress) {
+    getDrawable().updateSegments(progress);
+  }
+
+  public void updateSegment(int index, float progress) {
+    getDrawable().updateSegment(index, progress);
+  }
+
+  /**
+   * Displays the arc right away, with no show delay, spinning as if it had been displayed the
+   * given milliseconds ago. Used to restore a saved state.
+   */
+  public void showSpinning(long elapsedMillis) {
+    cancelPendingShow();
+    setAlpha(1);
+    getDrawable().startAt(elapsedMillis);
+  }
+
+  /**
+   * Same as {@link #showSpinning(long)} for segmented rings. Every task starts with no progress.
+   */
+  public void showSegmentsNow(int taskCount) {
+    cancelPendingShow();
+    getDrawable().startSegments(taskCount);
+    setAlpha(1);
+  }
+
+  private void cancelPendingShow() {
+    TimerWheel.getInstance().cancel(showEntry);
+    TimerWheel.getInstance().cancel(revealEntry);
+    showPendingOnAttach = false;
+    revealPendingOnAttach = false;
+    fadeOutAnimation.getAnimator().cancel();
+  }
+
+  /**
+   * Nothing is faded out if the arc was not visible yet.
+   */
   public void stop() {
+    TimerWheel.getInstance().cancel(showEntry);
+    TimerWheel.getInstance().cancel(revealEntry);
     getDrawable().stop();
-    ValueAnimator fadeOutAnim = ObjectAnimator.ofFloat(this, "alpha", 1, 0);
-    fadeOutAnim.setDuration(100).start();
+    fadeOutAnimation.getAnimator().cancel();
+    if (getAlpha() > 0) {
+      fadeOutAnimation.setRange(getAlpha(), 0).getAnimator().start();
+    }
   }
 
+  /**
+   * Leaves the arc hidden and idle. Animators will be started again by the next {@link #show()}.
+   */
   public void reset() {
-    getDrawable().reset();
+    getDrawable().stop();
+    scaleDownAnimation.getAnimator().cancel();
+    setScaleX(1);
+    setScaleY(1);
+  }
 
-    ValueAnimator arcScaleX = ObjectAnimator.ofFloat(this, "scaleX", 1);
-    ValueAnimator arcScaleY = ObjectAnimator.ofFloat(this, "scaleY", 1);
+  /**
+   * Pending show deadlines are dropped while this view is detached, and scheduled again with the
+   * full delay if it gets attached back.
+   */
+  @Override protected void onDetachedFromWindow() {
+    pausePendingShow();
+    super.onDetachedFromWindow();
+  }
 
-    AnimatorSet set = new AnimatorSet();
-    set.setDuration(0).setInterpolator(new DecelerateInterpolator());
-    set.playTogether(arcScaleX, arcScaleY);
-    set.start();
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    resumePendingShow();
   }
 
-  public void requestCompleteAnimation() {
-    getDrawable().requestCompleteAnimation(internalListener);
+  /**
+   * In overlay mode this view is never attached, and it is just drawn by the given
+   * {@link ArcOverlay} at the position of the host. The host must forward its window attachment
+   * through {@link #onHostAttachedToWindow()} and {@link #onHostDetachedFromWindow()}.
+   */
+  public void setOverlay(ArcOverlay overlay, View host) {
+    this.overlay = overlay;
+    this.host = host;
   }
 
-  private ProgressArcDrawable getDrawable() {
-    Drawable ret = getIndeterminateDrawable();
-    return (ProgressArcDrawable) ret;
+  public void onHostAttachedToWindow() {
+    if (overlay != null) {
+      overlay.register(this, host);
+      resumePendingShow();
+    }
   }
 
-  public AnimatorSet getScaleDownAnimator() {
-    float scalePercent = (float) getWidth() / (getWidth() + arcWidth + 5);
+  public void onHostDetachedFromWindow() {
+    if (overlay != null) {
+      pausePendingShow();
+      overlay.unregister(this);
+    }
+  }
 
-    ValueAnimator arcScaleX = ObjectAnimator.ofFloat(this, "scaleX", scalePercent);
-    ValueAnimator arcScaleY = ObjectAnimator.ofFloat(this, "scaleY", scalePercent);
+  @Override protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+    super.onSizeChanged(width, height, oldWidth, oldHeight);
+    arcDrawable.setBounds(getPaddingLeft(), getPaddingTop(), width - getPaddingRight(),
+        height - getPaddingBottom());
+  }
 
-    AnimatorSet set = new AnimatorSet();
-    set.setDuration(150).setInterpolator(new DecelerateInterpolator());
-    set.playTogether(arcScaleX, arcScaleY);
-    set.addListener(new Animator.AnimatorListener() {
-      @Override public void onAnimationStart(Animator animator) {
-      }
+  @Override protected void onDraw(Canvas canvas) {
+    arcDrawable.draw(canvas);
+  }
 
-      @Override public void onAnimationEnd(Animator animator) {
-        setupInitialAlpha();
-      }
+  @Override protected boolean verifyDrawable(Drawable drawable) {
+    return drawable == arcDrawable || super.verifyDrawable(drawable);
+  }
 
-      @Override public void onAnimationCancel(Animator animator) {
-      }
+  @Override public void invalidateDrawable(Drawable drawable) {
+    if (overlay != null) {
+      overlay.invalidate();
+    } else {
+      super.invalidateDrawable(drawable);
+    }
+  }
 
-      @Override public void onAnimationRepeat(Animator animator) {
-      }
-    });
+  private void pausePendingShow() {
+    showPendingOnAttach = TimerWheel.getInstance().cancel(showEntry);
+    revealPendingOnAttach = TimerWheel.getInstance().cancel(revealEntry);
+  }
+
+  private void resumePendingShow() {
+    if (showPendingOnAttach) {
+      showPendingOnAttach = false;
+      TimerWheel.getInstance().schedule(showEntry, showDelay);
+    }
+    if (revealPendingOnAttach) {
+      revealPendingOnAttach = false;
+      TimerWheel.getInstance().schedule(revealEntry, showDelay);
+    }
+  }
 
-    return set;
+  public void requestCompleteAnimation() {
+    getDrawable().requestCompleteAnimation(internalListener);
+  }
+
+  ProgressArcDrawable getArcDrawable() {
+    return arcDrawable;
+  }
+
+  private ProgressArcDrawable getDrawable() {
+    return arcDrawable;
+  }
+
+  public Animator getScaleDownAnimator() {
+    float scalePercent = (float) getWidth() / (getWidth() + arcWidth + 5);
+    return scaleDownAnimation.setRange(getScaleX(), scalePercent).getAnimator();
   }
 }
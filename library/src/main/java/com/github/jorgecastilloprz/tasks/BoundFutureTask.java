@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.tasks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * {@link FutureTask} that reports its outcome to a {@link BoundTask} as soon as it is done, from
+ * the worker thread that ran it. Cancellation and failures are both reported as failures.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public class BoundFutureTask<V> extends FutureTask<V> {
+
+  private final BoundTask boundTask;
+
+  public BoundFutureTask(Callable<V> callable, BoundTask boundTask) {
+    super(callable);
+    this.boundTask = boundTask;
+    boundTask.setFuture(this);
+  }
+
+  public BoundFutureTask(Runnable runnable, V result, BoundTask boundTask) {
+    super(runnable, result);
+    this.boundTask = boundTask;
+    boundTask.setFuture(this);
+  }
+
+  @Override protected void done() {
+    if (isCancelled()) {
+      boundTask.fail();
+      return;
+    }
+
+    try {
+      get();
+      boundTask.complete();
+    } catch (ExecutionException e) {
+      boundTask.fail();
+    } catch (InterruptedException e) {
+      boundTask.fail();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.tasks;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle for a task bound to a FABProgressCircle. It can be notified from any thread, and only the
+ * first outcome reported (complete, fail or cancel) is taken into account. That outcome reaches
+ * the main thread with one single post, straight into the component.
+ *
+ * The result is posted to a main thread handler instead of to the host view: before Nougat, views
+ * not attached yet keep posts from other threads in a queue of the posting thread, which a worker
+ * thread never runs.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class BoundTask {
+
+  private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+  private final AtomicBoolean finished = new AtomicBoolean();
+  private final BoundTaskListener listener;
+  private volatile Future<?> future;
+  private volatile boolean success;
+  private volatile boolean cancelled;
+
+  /**
+   * The host may not be attached yet, or may have been detached (which cancels the task) before
+   * this runs. The component ignores results for tasks it is not bound to anymore, and results
+   * not making sense in its current state.
+   */
+  private final Runnable dispatchResult = new Runnable() {
+    @Override public void run() {
+      if (!cancelled) {
+        listener.onBoundTaskFinished(BoundTask.this, success);
+      }
+    }
+  };
+
+  public BoundTask(BoundTaskListener listener) {
+    this.listener = listener;
+  }
+
+  void setFuture(Future<?> future) {
+    this.future = future;
+  }
+
+  /**
+   * The bound future will get cancelled if the component is detached before the task finishes.
+   */
+  public BoundTask withFuture(Future<?> future) {
+    setFuture(future);
+    return this;
+  }
+
+  public void complete() {
+    finish(true);
+  }
+
+  public void fail() {
+    finish(false);
+  }
+
+  public boolean isFinished() {
+    return finished.get();
+  }
+
+  /**
+   * Cancels the task silently. No result will be dispatched to the component after this call.
+   */
+  public void cancel() {
+    cancelled = true;
+    if (finished.compareAndSet(false, true)) {
+      Future<?> boundFuture = future;
+      if (boundFuture != null) {
+        boundFuture.cancel(true);
+      }
+    }
+    MAIN_HANDLER.removeCallbacks(dispatchResult);
+  }
+
+  private void finish(boolean success) {
+    if (finished.compareAndSet(false, true)) {
+      this.success = success;
+      MAIN_HANDLER.post(dispatchResult);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the dumps written by {@link FrameTraceRecorder}. It does not depend on Android, so it can
+ * be run on a desktop JVM to get a CSV out of a dump pulled from a device:
+ *
+ * <pre>
+ * java -cp library.jar com.github.jorgecastilloprz.trace.FrameTraceDecoder trace.bin
+ * </pre>
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class FrameTraceDecoder {
+
+  public static final class Record {
+
+    public final long timestampNanos;
+    public final int phase;
+    public final float startAngle;
+    public final float sweepAngle;
+    public final long drawDurationNanos;
+
+    Record(long timestampNanos, int phase, float startAngle, float sweepAngle,
+        long drawDurationNanos) {
+      this.timestampNanos = timestampNanos;
+      this.phase = phase;
+      this.startAngle = startAngle;
+      this.sweepAngle = sweepAngle;
+      this.drawDurationNanos = drawDurationNanos;
+    }
+  }
+
+  private FrameTraceDecoder() {
+  }
+
+  public static List<Record> decode(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != FrameTraceRecorder.MAGIC) {
+      throw new IOException("Not a frame trace dump");
+    }
+    int version = data.readInt();
+    if (version != FrameTraceRecorder.VERSION) {
+      throw new IOException("Unsupported frame trace version " + version);
+    }
+    int recordSize = data.readInt();
+    int count = data.readInt();
+
+    List<Record> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      long timestamp = data.readLong();
+      int phase = data.readInt();
+      float startAngle = data.readFloat();
+      float sweepAngle = data.readFloat();
+      long duration = data.readInt() & 0xffffffffL;
+      data.skipBytes(recordSize - FrameTraceRecorder.RECORD_SIZE);
+      records.add(new Record(timestamp, phase, startAngle, sweepAngle, duration));
+    }
+    return records;
+  }
+
+  public static String phaseName(int phase) {
+    switch (phase) {
+      case FrameTraceRecorder.PHASE_IDLE:
+        return "idle";
+      case FrameTraceRecorder.PHASE_GROW:
+        return "grow";
+      case FrameTraceRecorder.PHASE_SHRINK:
+        return "shrink";
+      case FrameTraceRecorder.PHASE_COMPLETE:
+        return "complete";
+      case FrameTraceRecorder.PHASE_SEGMENTS:
+        return "segments";
+      case FrameTraceRecorder.PHASE_COMPLETION:
+        return "completion";
+      case FrameTraceRecorder.PHASE_RESET:
+        return "reset";
+      default:
+        return "unknown(" + phase + ")";
+    }
+  }
+
+  /**
+   * Prints every record as CSV. Times are in milliseconds since the first record, and the
+   * interval column is the time since the previous record, where jank shows up.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: FrameTraceDecoder <dump file>");
+      System.exit(1);
+    }
+
+    List<Record> records;
+    InputStream in = new BufferedInputStream(new FileInputStream(args[0]));
+    try {
+      records = decode(in);
+    } finally {
+      in.close();
+    }
+
+    System.out.println("time_ms,interval_ms,phase,start_angle,sweep_angle,draw_us");
+    long first = records.isEmpty() ? 0 : records.get(0).timestampNanos;
+    long previous = first;
+    for (Record record : records) {
+      System.out.println(String.format(Locale.US, "%.3f,%.3f,%s,%.2f,%.2f,%.1f",
+          (record.timestampNanos - first) / 1e6, (record.timestampNanos - previous) / 1e6,
+          phaseName(record.phase), record.startAngle, record.sweepAngle,
+          record.drawDurationNanos / 1e3));
+      previous = record.timestampNanos;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in per frame recorder for the library drawing. Every drawn frame writes one fixed size
+ * binary record (timestamp, phase, start angle, sweep angle and draw duration) into a ring buffer
+ * allocated up front, so recording never allocates nor locks. Once full, the oldest records get
+ * overwritten.
+ *
+ * Records are written from the main thread only. They can be dumped from any thread at any time,
+ * and the ones overwritten while dumping are just dropped. Use {@link FrameTraceDecoder} to read
+ * the dumps back.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class FrameTraceRecorder {
+
+  public static final int PHASE_IDLE = 0;
+  public static final int PHASE_GROW = 1;
+  public static final int PHASE_SHRINK = 2;
+  public static final int PHASE_COMPLETE = 3;
+  public static final int PHASE_SEGMENTS = 4;
+  public static final int PHASE_COMPLETION = 5;
+  public static final int PHASE_RESET = 6;
+
+  static final int MAGIC = 0x46504354;
+  static final int VERSION = 1;
+  static final int RECORD_SIZE = 24;
+
+  private static final int TIMESTAMP_OFFSET = 0;
+  private static final int PHASE_OFFSET = 8;
+  private static final int START_ANGLE_OFFSET = 12;
+  private static final int SWEEP_ANGLE_OFFSET = 16;
+  private static final int DURATION_OFFSET = 20;
+
+  private final int capacity;
+  private final int slots;
+  private final ByteBuffer buffer;
+  private final AtomicLong written = new AtomicLong();
+
+  public FrameTraceRecorder(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be greater than zero");
+    }
+    this.capacity = capacity;
+    slots = capacity + 1;
+    buffer = ByteBuffer.allocate(slots * RECORD_SIZE);
+  }
+
+  /**
+   * Main thread only. Durations are stored in nanoseconds, saturated to 32 bits.
+   */
+  public void record(long timestampNanos, int phase, float startAngle, float sweepAngle,
+      long drawDurationNanos) {
+    long index = written.get();
+    int offset = (int) (index % slots) * RECORD_SIZE;
+    buffer.putLong(offset + TIMESTAMP_OFFSET, timestampNanos);
+    buffer.putInt(offset + PHASE_OFFSET, phase);
+    buffer.putFloat(offset + START_ANGLE_OFFSET, startAngle);
+    buffer.putFloat(offset + SWEEP_ANGLE_OFFSET, sweepAngle);
+    buffer.putInt(offset + DURATION_OFFSET, (int) Math.min(drawDurationNanos, Integer.MAX_VALUE));
+    written.lazySet(index + 1);
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Total number of records written since creation, including the overwritten ones.
+   */
+  public long getRecordCount() {
+    return written.get();
+  }
+
+  public void dump(File file) throws IOException {
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+    try {
+      dump(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Writes the records still in the buffer, from the oldest to the newest one. The stream is
+   * flushed but not closed.
+   */
+  public void dump(OutputStream out) throws IOException {
+    long end = written.get();
+    long start = Math.max(0, end - capacity);
+    byte[] records = new byte[(int) (end - start) * RECORD_SIZE];
+    ByteBuffer source = buffer.duplicate();
+    for (long index = start; index < end; index++) {
+      source.position((int) (index % slots) * RECORD_SIZE);
+      source.get(records, (int) (index - start) * RECORD_SIZE, RECORD_SIZE);
+    }
+
+    // There is one spare slot, so the record being written right now never overlaps the last
+    // capacity ones. Records overwritten while copying are dropped.
+    long firstValid = Math.max(start, written.get() - capacity);
+    long count = Math.max(0, end - firstValid);
+
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(RECORD_SIZE);
+    data.writeInt((int) count);
+    data.write(records, (int) (end - start - count) * RECORD_SIZE, (int) count * RECORD_SIZE);
+    data.flush();
+  }
+}
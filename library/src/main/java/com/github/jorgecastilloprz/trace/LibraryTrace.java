@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.trace;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+import java.lang.reflect.Method;
+
+/**
+ * Systrace / Perfetto sections for the library phases. Everything is a no-op unless enabled with
+ * {@link #setEnabled(boolean)}, and the only cost then is a static flag check.
+ *
+ * Synchronous sections use {@link Trace} (API 18). Async slices, for phases spanning many frames
+ * like animations, use the hidden {@code Trace.asyncTraceBegin/End} methods through reflection,
+ * as they are not public on the SDK this library is compiled against. They are just skipped if
+ * those methods cannot be found.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class LibraryTrace {
+
+  private static final long TRACE_TAG_APP = 1L << 12;
+
+  private static boolean enabled;
+  private static boolean asyncResolved;
+  private static Method asyncTraceBegin;
+  private static Method asyncTraceEnd;
+
+  private LibraryTrace() {
+  }
+
+  /**
+   * Sections are only emitted on API 18 and above, so enabling it on older devices does nothing.
+   */
+  public static void setEnabled(boolean enabled) {
+    LibraryTrace.enabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+  public static void beginSection(String name) {
+    if (enabled) {
+      Trace.beginSection(name);
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+  public static void endSection() {
+    if (enabled) {
+      Trace.endSection();
+    }
+  }
+
+  /**
+   * Starts a slice that can end on any later frame. The cookie tells apart concurrent slices with
+   * the same name (one per component, for instance).
+   */
+  public static void beginAsyncSection(String name, int cookie) {
+    if (enabled) {
+      invokeAsync(true, name, cookie);
+    }
+  }
+
+  public static void endAsyncSection(String name, int cookie) {
+    if (enabled) {
+      invokeAsync(false, name, cookie);
+    }
+  }
+
+  private static void invokeAsync(boolean begin, String name, int cookie) {
+    if (!asyncResolved) {
+      resolveAsyncMethods();
+    }
+    Method method = begin ? asyncTraceBegin : asyncTraceEnd;
+    if (method == null) {
+      return;
+    }
+
+    try {
+      method.invoke(null, TRACE_TAG_APP, name, cookie);
+    } catch (Exception ignored) {
+      asyncTraceBegin = null;
+      asyncTraceEnd = null;
+    }
+  }
+
+  private static void resolveAsyncMethods() {
+    asyncResolved = true;
+    try {
+      asyncTraceBegin =
+          Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+      asyncTraceEnd = Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+    } catch (NoSuchMethodException ignored) {
+      asyncTraceBegin = null;
+      asyncTraceEnd = null;
+    }
+  }
+}
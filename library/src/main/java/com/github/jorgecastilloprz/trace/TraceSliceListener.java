@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.trace;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+
+/**
+ * Emits an async trace slice spanning every run of the animator it is added to.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public class TraceSliceListener extends AnimatorListenerAdapter {
+
+  private final String name;
+  private final int cookie = System.identityHashCode(this);
+  private boolean open;
+
+  public TraceSliceListener(String name) {
+    this.name = name;
+  }
+
+  @Override public void onAnimationStart(Animator animation) {
+    if (LibraryTrace.isEnabled()) {
+      LibraryTrace.beginAsyncSection(name, cookie);
+      open = true;
+    }
+  }
+
+  /**
+   * Also called after cancelling.
+   */
+  @Override public void onAnimationEnd(Animator animation) {
+    if (open) {
+      open = false;
+      LibraryTrace.endAsyncSection(name, cookie);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import android.animation.ValueAnimator;
 public class AnimationUtils {
 
   public static final int SHOW_SCALE_ANIM_DELAY = 150;
+  public static final int MIN_SHOW_TIME = 500;
 
   public static float getAnimatedFraction(ValueAnimator animator) {
     float fraction = ((float) animator.getCurrentPlayTime()) / animator.getDuration();
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.utils;
+
+import android.animation.Animator;
+import android.view.View;
+
+/**
+ * Promotes the given view to a hardware layer for as long as the animator runs, so alpha and
+ * scale changes just recomposite the layer instead of redrawing the view content every frame.
+ *
+ * Every layer costs width * height * 4 bytes of graphics memory, so only a bounded number of them
+ * can be alive at the same time. Views animating beyond that limit are just drawn as usual.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public class HardwareLayerListener implements Animator.AnimatorListener {
+
+  private static final int MAX_ACTIVE_LAYERS = 8;
+
+  private static int activeLayers;
+
+  private final View view;
+  private boolean layerAcquired;
+
+  public HardwareLayerListener(View view) {
+    this.view = view;
+  }
+
+  @Override public void onAnimationStart(Animator animator) {
+    if (!layerAcquired && activeLayers < MAX_ACTIVE_LAYERS
+        && view.getLayerType() == View.LAYER_TYPE_NONE) {
+      activeLayers++;
+      layerAcquired = true;
+      view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+    }
+  }
+
+  @Override public void onAnimationEnd(Animator animator) {
+    releaseLayer();
+  }
+
+  @Override public void onAnimationCancel(Animator animator) {
+    releaseLayer();
+  }
+
+  @Override public void onAnimationRepeat(Animator animator) {
+  }
+
+  private void releaseLayer() {
+    if (layerAcquired) {
+      layerAcquired = false;
+      activeLayers--;
+      view.setLayerType(View.LAYER_TYPE_NONE, null);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.utils;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * Process wide scheduler for the library delays (show delays, reusable reset delays...). Instead
+ * of one pending message or delayed animator per component, every deadline is kept into a hashed
+ * timer wheel with one slot per frame, and all the entries due are fired together once per frame.
+ * The wheel only ticks while there is something scheduled.
+ *
+ * Entries are owned by the components and reused, so scheduling does not allocate, and they can
+ * be cancelled in constant time. It must only be used from the main thread.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class TimerWheel {
+
+  private static final int TICK_MILLIS = 16;
+  private static final int WHEEL_SIZE = 256;
+
+  private static TimerWheel instance;
+
+  /**
+   * A reusable deadline. It can only be scheduled once at a time; scheduling it again moves it.
+   */
+  public static final class Entry {
+
+    private final Runnable task;
+    private long deadlineTick;
+    private Entry previous;
+    private Entry next;
+    private Entry nextFired;
+    private boolean scheduled;
+    private boolean firePending;
+
+    public Entry(Runnable task) {
+      this.task = task;
+    }
+
+    public boolean isScheduled() {
+      return scheduled || firePending;
+    }
+  }
+
+  private final Entry[] slots = new Entry[WHEEL_SIZE];
+  private final Ticker ticker;
+  private int pendingEntries;
+  private long currentTick;
+  private boolean tickScheduled;
+  private Entry firedHead;
+
+  public static TimerWheel getInstance() {
+    if (instance == null) {
+      instance = new TimerWheel();
+    }
+    return instance;
+  }
+
+  private TimerWheel() {
+    ticker = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ? new ChoreographerTicker()
+        : new HandlerTicker();
+  }
+
+  public void schedule(Entry entry, long delayMillis) {
+    cancel(entry);
+    if (pendingEntries == 0) {
+      currentTick = now();
+      scheduleTick();
+    }
+
+    long ticks = Math.max(1, (delayMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+    entry.deadlineTick = currentTick + ticks;
+    addToSlot(entry, (int) (entry.deadlineTick % WHEEL_SIZE));
+    entry.scheduled = true;
+    pendingEntries++;
+  }
+
+  /**
+   * @return true if the entry was scheduled and it will not be fired anymore.
+   */
+  public boolean cancel(Entry entry) {
+    if (entry.firePending) {
+      entry.firePending = false;
+      return true;
+    }
+    if (!entry.scheduled) {
+      return false;
+    }
+    removeFromSlot(entry, (int) (entry.deadlineTick % WHEEL_SIZE));
+    entry.scheduled = false;
+    pendingEntries--;
+    return true;
+  }
+
+  private void addToSlot(Entry entry, int slot) {
+    entry.previous = null;
+    entry.next = slots[slot];
+    if (slots[slot] != null) {
+      slots[slot].previous = entry;
+    }
+    slots[slot] = entry;
+  }
+
+  private void removeFromSlot(Entry entry, int slot) {
+    if (entry.previous != null) {
+      entry.previous.next = entry.next;
+    } else {
+      slots[slot] = entry.next;
+    }
+    if (entry.next != null) {
+      entry.next.previous = entry.previous;
+    }
+    entry.previous = null;
+    entry.next = null;
+  }
+
+  private void scheduleTick() {
+    if (!tickScheduled) {
+      tickScheduled = true;
+      ticker.scheduleTick();
+    }
+  }
+
+  /**
+   * Advances the wheel up to the current frame, collecting every due entry first and running all
+   * of them afterwards, so tasks scheduling or cancelling entries do not interfere with the walk.
+   */
+  private void tick() {
+    tickScheduled = false;
+    long targetTick = now();
+    while (currentTick < targetTick && pendingEntries > 0) {
+      currentTick++;
+      collectDueEntries((int) (currentTick % WHEEL_SIZE));
+    }
+    currentTick = Math.max(currentTick, targetTick);
+
+    while (firedHead != null) {
+      Entry entry = firedHead;
+      firedHead = entry.nextFired;
+      entry.nextFired = null;
+      if (entry.firePending) {
+        entry.firePending = false;
+        entry.task.run();
+      }
+    }
+
+    if (pendingEntries > 0) {
+      scheduleTick();
+    }
+  }
+
+  private void collectDueEntries(int slot) {
+    Entry entry = slots[slot];
+    while (entry != null) {
+      Entry next = entry.next;
+      if (entry.deadlineTick <= currentTick) {
+        removeFromSlot(entry, slot);
+        entry.scheduled = false;
+        pendingEntries--;
+        entry.firePending = true;
+        entry.nextFired = firedHead;
+        firedHead = entry;
+      }
+      entry = next;
+    }
+  }
+
+  private static long now() {
+    return SystemClock.uptimeMillis() / TICK_MILLIS;
+  }
+
+  private interface Ticker {
+
+    void scheduleTick();
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  private final class ChoreographerTicker implements Ticker, Choreographer.FrameCallback {
+
+    @Override public void scheduleTick() {
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override public void doFrame(long frameTimeNanos) {
+      tick();
+    }
+  }
+
+  private final class HandlerTicker implements Ticker, Runnable {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override public void scheduleTick() {
+      handler.postDelayed(this, TICK_MILLIS);
+    }
+
+    @Override public void run() {
+      tick();
+    }
+  }
+}
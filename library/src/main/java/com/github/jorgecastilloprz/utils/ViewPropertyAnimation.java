@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.utils;
+
+import android.animation.Animator;
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+import static com.github.jorgecastilloprz.utils.AnimationUtils.getAnimatedFraction;
+
+/**
+ * Animates a view property by calling its setter directly on every frame. Unlike
+ * {@code ObjectAnimator.ofFloat(view, "alpha", ...)} there is no setter lookup by reflection and
+ * no boxed values, and the animator is meant to be built once and started again as many times as
+ * needed. Scale animates both axis with a single animator.
+ *
+ * Typed {@code Property} objects would do the same, but they need api 14.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public class ViewPropertyAnimation
+    implements ValueAnimator.AnimatorUpdateListener, Animator.AnimatorListener {
+
+  public enum Property {
+    ALPHA, SCALE
+  }
+
+  private final View view;
+  private final Property property;
+  private final ValueAnimator animator;
+  private float from;
+  private float to;
+  private boolean cancelled;
+
+  public ViewPropertyAnimation(View view, Property property, long duration,
+      Interpolator interpolator) {
+    this.view = view;
+    this.property = property;
+    animator = ValueAnimator.ofFloat(0f, 1f);
+    animator.setDuration(duration);
+    animator.setInterpolator(interpolator);
+    animator.addUpdateListener(this);
+    animator.addListener(this);
+  }
+
+  public ViewPropertyAnimation setRange(float from, float to) {
+    this.from = from;
+    this.to = to;
+    return this;
+  }
+
+  public ValueAnimator getAnimator() {
+    return animator;
+  }
+
+  @Override public void onAnimationUpdate(ValueAnimator animation) {
+    apply(from + getAnimatedFraction(animation) * (to - from));
+  }
+
+  private void apply(float value) {
+    switch (property) {
+      case ALPHA:
+        view.setAlpha(value);
+        break;
+      default:
+        view.setScaleX(value);
+        view.setScaleY(value);
+    }
+  }
+
+  @Override public void onAnimationStart(Animator animation) {
+    cancelled = false;
+  }
+
+  /**
+   * The last frame is not guaranteed to be dispatched with the final play time (for example when
+   * the animation is ended early), so the final value is always applied here.
+   */
+  @Override public void onAnimationEnd(Animator animation) {
+    if (!cancelled) {
+      apply(to);
+    }
+  }
+
+  @Override public void onAnimationCancel(Animator animation) {
+    cancelled = true;
+  }
+
+  @Override public void onAnimationRepeat(Animator animation) {
+  }
+}
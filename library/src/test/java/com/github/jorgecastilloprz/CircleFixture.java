@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.ShapeDrawable;
+import android.graphics.drawable.shapes.OvalShape;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.FrameLayout;
+import android.widget.ImageButton;
+import com.github.jorgecastilloprz.library.R;
+import org.robolectric.Robolectric;
+
+/**
+ * Shared setup for the FABProgressCircle tests: an activity with a FrameLayout as content view,
+ * and oval FABs wrapped by the circles under test. The main looper is paused, so time only moves
+ * forward through {@link #advance(int)}, one frame at a time. Every invalidation coming from the
+ * circles walks up through the root, where it is counted.
+ *
+ * @author Jorge Castillo Pérez
+ */
+final class CircleFixture {
+
+  static final int FRAME_MILLIS = 16;
+  static final int WINDOW_WIDTH = 1080;
+  static final int WINDOW_HEIGHT = 1920;
+
+  final Activity activity;
+  final InvalidationCountingRoot root;
+  final int fabSize;
+
+  private final Canvas canvas =
+      new Canvas(Bitmap.createBitmap(WINDOW_WIDTH, WINDOW_HEIGHT, Bitmap.Config.ARGB_8888));
+
+  private CircleFixture(Activity activity) {
+    this.activity = activity;
+    fabSize = activity.getResources().getDimensionPixelSize(R.dimen.fab_size_normal);
+    root = new InvalidationCountingRoot(activity);
+    activity.setContentView(root);
+    Robolectric.pauseMainLooper();
+  }
+
+  /**
+   * The activity is just created, so the circles are never attached to a window.
+   */
+  static CircleFixture created() {
+    return new CircleFixture(Robolectric.buildActivity(Activity.class).create().get());
+  }
+
+  /**
+   * The activity is visible, so circles added to the root get attached to the window.
+   */
+  static CircleFixture visible() {
+    return new CircleFixture(
+        Robolectric.buildActivity(Activity.class).create().start().resume().visible().get());
+  }
+
+  FABProgressCircle newCircle() {
+    return wrap(new FABProgressCircle(activity), new ImageButton(activity));
+  }
+
+  <T extends FABProgressCircle> T wrap(T circle, ImageButton fab) {
+    fab.setBackgroundDrawable(new ShapeDrawable(new OvalShape()));
+    circle.addView(fab, new ViewGroup.LayoutParams(fabSize, fabSize));
+    return circle;
+  }
+
+  void attach(FABProgressCircle circle) {
+    root.addView(circle, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+        ViewGroup.LayoutParams.WRAP_CONTENT));
+  }
+
+  void detach(FABProgressCircle circle) {
+    root.removeView(circle);
+  }
+
+  void layout() {
+    root.measure(View.MeasureSpec.makeMeasureSpec(WINDOW_WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(WINDOW_HEIGHT, View.MeasureSpec.EXACTLY));
+    root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+  }
+
+  void draw() {
+    root.draw(canvas);
+  }
+
+  /**
+   * Runs the tasks due in the next frame, and then lays out and draws the tree like a traversal
+   * would.
+   */
+  void frame() {
+    Robolectric.getUiThreadScheduler().advanceBy(FRAME_MILLIS);
+    if (root.isLayoutRequested()) {
+      layout();
+    }
+    draw();
+  }
+
+  void advance(int millis) {
+    for (int elapsed = 0; elapsed < millis; elapsed += FRAME_MILLIS) {
+      frame();
+    }
+  }
+
+  /**
+   * Only views already drawn get their invalidations up to the root, so the tree has to be drawn
+   * before counting them.
+   */
+  static final class InvalidationCountingRoot extends FrameLayout {
+
+    int invalidations;
+
+    InvalidationCountingRoot(Context context) {
+      super(context);
+    }
+
+    @Override public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+      invalidations++;
+      return super.invalidateChildInParent(location, dirty);
+    }
+  }
+}
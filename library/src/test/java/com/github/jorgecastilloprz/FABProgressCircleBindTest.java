@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz;
+
+import android.view.View;
+import com.github.jorgecastilloprz.tasks.BoundTask;
+import com.github.jorgecastilloprz.utils.AnimationUtils;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.github.jorgecastilloprz.FABProgressCircle.State.COMPLETING;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.IDLE;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.SHOWING;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.SPINNING;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.drawableOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Binds tasks to a FABProgressCircle and finishes them from worker threads.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class FABProgressCircleBindTest {
+
+  private static final Executor REJECTING = new Executor() {
+    @Override public void execute(Runnable command) {
+      throw new RejectedExecutionException();
+    }
+  };
+
+  private static final Runnable NO_OP = new Runnable() {
+    @Override public void run() {
+    }
+  };
+
+  private FABProgressCircle circle;
+
+  @Before public void setUp() {
+    circle = CircleFixture.created().newCircle();
+  }
+
+  /**
+   * Like a task bound from onCreate() and finished before the first traversal.
+   */
+  @Test public void taskFinishedBeforeAttachReachesTheComponent() throws Exception {
+    int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    circle.measure(spec, spec);
+    final BoundTask task = circle.bind(null);
+
+    Thread worker = new Thread(new Runnable() {
+      @Override public void run() {
+        task.complete();
+      }
+    });
+    worker.start();
+    worker.join();
+    Robolectric.getUiThreadScheduler().advanceBy(CircleFixture.FRAME_MILLIS);
+
+    assertEquals(COMPLETING, circle.getState());
+  }
+
+  @Test public void rejectedTaskLeavesTheComponentIdle() {
+    int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    circle.measure(spec, spec);
+    try {
+      circle.bind(REJECTING, NO_OP);
+      throw new AssertionError("The rejection was swallowed");
+    } catch (RejectedExecutionException expected) {
+      assertEquals(IDLE, circle.getState());
+    }
+
+    BoundTask task = circle.bind(null);
+    assertEquals(SHOWING, circle.getState());
+    task.complete();
+    Robolectric.getUiThreadScheduler().advanceBy(CircleFixture.FRAME_MILLIS);
+    assertEquals(COMPLETING, circle.getState());
+  }
+
+  @Test public void rejectedTaskLeavesThePreviousOneBound() {
+    int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    circle.measure(spec, spec);
+    BoundTask previous = circle.bind(null);
+
+    try {
+      circle.bind(REJECTING, NO_OP);
+      throw new AssertionError("The rejection was swallowed");
+    } catch (RejectedExecutionException expected) {
+      assertEquals(SHOWING, circle.getState());
+    }
+
+    previous.complete();
+    Robolectric.getUiThreadScheduler().advanceBy(CircleFixture.FRAME_MILLIS);
+    assertEquals(COMPLETING, circle.getState());
+  }
+
+  /**
+   * Like a list row scrolled off while its task runs, and bound to a new one once back.
+   */
+  @Test public void detachingHidesTheArcOfTheCancelledTask() {
+    CircleFixture fixture = CircleFixture.visible();
+    FABProgressCircle attached = fixture.newCircle();
+    fixture.attach(attached);
+    fixture.layout();
+    BoundTask task = attached.bind(null);
+    fixture.advance(AnimationUtils.SHOW_SCALE_ANIM_DELAY + CircleFixture.FRAME_MILLIS * 2);
+    assertEquals(SPINNING, attached.getState());
+
+    fixture.detach(attached);
+    assertEquals(IDLE, attached.getState());
+    assertFalse(drawableOf(attached.getProgressArc()).isRunning());
+
+    fixture.attach(attached);
+    task.complete();
+    fixture.advance(CircleFixture.FRAME_MILLIS);
+    assertEquals(IDLE, attached.getState());
+
+    attached.bind(null);
+    assertEquals(SHOWING, attached.getState());
+  }
+}
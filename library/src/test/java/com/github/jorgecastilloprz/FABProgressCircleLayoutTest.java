@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.ShapeDrawable;
+import android.graphics.drawable.shapes.OvalShape;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageButton;
+import com.github.jorgecastilloprz.completefab.CompleteFABView;
+import com.github.jorgecastilloprz.library.R;
+import com.github.jorgecastilloprz.progressarc.animations.ArcAnimationFactory;
+import com.github.jorgecastilloprz.utils.AnimationUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the measure and layout passes of a FABProgressCircle. Its first layout must be done in
+ * a single pass, and showing, completing and resetting it must not need any other one.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class FABProgressCircleLayoutTest {
+
+  private static final int SHOW_MILLIS = AnimationUtils.SHOW_SCALE_ANIM_DELAY + 100;
+  private static final int LIFECYCLE_MILLIS =
+      ArcAnimationFactory.SWEEP_ANIM_DURATION * 4 + ArcAnimationFactory.COMPLETE_ANIM_DURATION
+          + CompleteFABView.RESET_DELAY + 1000;
+
+  private CircleFixture fixture;
+  private PassCountingCircle circle;
+  private DrawCountingFab fab;
+
+  @Before public void setUp() {
+    fixture = CircleFixture.created();
+    fab = new DrawCountingFab(fixture.activity);
+    circle = fixture.wrap(new PassCountingCircle(fixture.activity), fab);
+    circle.setReusable(true);
+    fixture.attach(circle);
+  }
+
+  @Test public void firstLayoutIsDoneInASinglePass() {
+    fixture.layout();
+
+    assertFalse("Another layout pass was requested", fixture.root.isLayoutRequested());
+    assertEquals(1, circle.measurePasses);
+    assertEquals(1, circle.layoutPasses);
+  }
+
+  @Test public void childrenAreSizedFromTheMeasuredFab() {
+    fixture.layout();
+
+    for (int i = 0; i < circle.getChildCount(); i++) {
+      View child = circle.getChildAt(i);
+      if (i == 0 || child instanceof CompleteFABView) {
+        assertEquals(fixture.fabSize, child.getMeasuredWidth());
+        assertEquals(fixture.fabSize, child.getMeasuredHeight());
+      } else {
+        assertTrue(child.getMeasuredWidth() >= fixture.fabSize);
+        assertEquals(child.getMeasuredWidth(), child.getMeasuredHeight());
+      }
+    }
+  }
+
+  @Test public void fullLifecycleDoesNotNeedMoreLayoutPasses() {
+    fixture.layout();
+
+    circle.show();
+    fixture.advance(SHOW_MILLIS);
+    circle.beginFinalAnimation();
+    fixture.advance(LIFECYCLE_MILLIS);
+
+    assertEquals(FABProgressCircle.State.IDLE, circle.getState());
+    assertEquals(1, circle.measurePasses);
+    assertEquals(1, circle.layoutPasses);
+  }
+
+  /**
+   * Like the design library FAB before Lollipop, whose compat shadow is the padding of its
+   * background, larger at the bottom. The arc and the completion view must fit the visible
+   * circle.
+   */
+  @Test public void fabShadowIsLeftOutOfTheArc() {
+    int shadow = 10;
+    ShapeDrawable background = new ShapeDrawable(new OvalShape());
+    background.setPadding(shadow, shadow, shadow, shadow * 2);
+    ImageButton paddedFab = new ImageButton(fixture.activity);
+    paddedFab.setBackgroundDrawable(background);
+    FABProgressCircle padded = new FABProgressCircle(fixture.activity);
+    padded.addView(paddedFab, new ViewGroup.LayoutParams(fixture.fabSize + shadow * 2,
+        fixture.fabSize + shadow * 3));
+    fixture.detach(circle);
+    fixture.attach(padded);
+    fixture.layout();
+
+    View progressArc = padded.getProgressArc();
+    View completeFABView = padded.getCompleteFABView();
+    int arcWidth = padded.getResources().getDimensionPixelSize(R.dimen.progress_arc_stroke_width);
+    assertEquals(fixture.fabSize, completeFABView.getMeasuredWidth());
+    assertEquals(fixture.fabSize + arcWidth, progressArc.getMeasuredWidth());
+    assertEquals(paddedFab.getLeft() + shadow, completeFABView.getLeft());
+    assertEquals(paddedFab.getTop() + shadow, completeFABView.getTop());
+    assertEquals(completeFABView.getLeft() + completeFABView.getWidth() / 2,
+        progressArc.getLeft() + progressArc.getWidth() / 2);
+    assertEquals(completeFABView.getTop() + completeFABView.getHeight() / 2,
+        progressArc.getTop() + progressArc.getHeight() / 2);
+  }
+
+  /**
+   * Pre lollipop the FAB draws its own shadow, which must not vanish while completed.
+   */
+  @Test public void fabIsStillDrawnWhileCompletedBelowLollipop() {
+    fixture.layout();
+    circle.show();
+    fixture.advance(SHOW_MILLIS);
+    circle.beginFinalAnimation();
+    fixture.advance(LIFECYCLE_MILLIS - CompleteFABView.RESET_DELAY - 1000);
+    assertEquals(FABProgressCircle.State.COMPLETED, circle.getState());
+
+    fab.draws = 0;
+    fixture.draw();
+    assertEquals(1, fab.draws);
+  }
+
+  private static class DrawCountingFab extends ImageButton {
+
+    int draws;
+
+    DrawCountingFab(Context context) {
+      super(context);
+    }
+
+    @Override public void draw(Canvas canvas) {
+      draws++;
+      super.draw(canvas);
+    }
+  }
+
+  private static class PassCountingCircle extends FABProgressCircle {
+
+    int measurePasses;
+    int layoutPasses;
+
+    PassCountingCircle(Context context) {
+      super(context);
+    }
+
+    @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+      measurePasses++;
+      super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override protected void onLayout(boolean changed, int left, int top, int right,
+        int bottom) {
+      layoutPasses++;
+      super.onLayout(changed, left, top, right, bottom);
+    }
+  }
+}
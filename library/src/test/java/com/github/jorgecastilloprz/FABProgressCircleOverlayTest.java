@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz;
+
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import com.github.jorgecastilloprz.progressarc.ArcOverlay;
+import com.github.jorgecastilloprz.progressarc.ProgressArcDrawable;
+import com.github.jorgecastilloprz.progressarc.animations.ArcAnimationFactory;
+import com.github.jorgecastilloprz.utils.AnimationUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.github.jorgecastilloprz.FABProgressCircle.State.COMPLETED;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.COMPLETING;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.SPINNING;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.drawableOf;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.startAngleOf;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.sweepAngleOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Switches a running FABProgressCircle in and out of an {@link ArcOverlay}, like lists recycling
+ * rows with a different mode do. The arc must carry on from where it was, and still complete.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class FABProgressCircleOverlayTest {
+
+  private static final int SHOW_MILLIS =
+      AnimationUtils.SHOW_SCALE_ANIM_DELAY + CircleFixture.FRAME_MILLIS * 2;
+  private static final int COMPLETE_MILLIS =
+      ArcAnimationFactory.SWEEP_ANIM_DURATION * 2 + ArcAnimationFactory.COMPLETE_ANIM_DURATION
+          + 1000;
+
+  private CircleFixture fixture;
+  private FABProgressCircle circle;
+  private ArcOverlay overlay;
+
+  @Before public void setUp() {
+    fixture = CircleFixture.visible();
+    circle = fixture.newCircle();
+    fixture.attach(circle);
+    overlay = new ArcOverlay(fixture.activity);
+    fixture.root.addView(overlay, new FrameLayout.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    fixture.layout();
+  }
+
+  @Test public void spinningArcCompletesAfterSwitchingModes() {
+    circle.show();
+    fixture.advance(SHOW_MILLIS);
+    assertEquals(SPINNING, circle.getState());
+
+    toggleOverlay();
+    assertEquals(SPINNING, circle.getState());
+
+    circle.beginFinalAnimation();
+    fixture.advance(COMPLETE_MILLIS);
+    assertEquals(COMPLETED, circle.getState());
+  }
+
+  @Test public void completingArcCompletesAfterSwitchingModes() {
+    circle.setArcOverlay(overlay);
+    circle.show();
+    fixture.advance(SHOW_MILLIS);
+    circle.beginFinalAnimation();
+    fixture.advance(CircleFixture.FRAME_MILLIS * 4);
+    assertEquals(COMPLETING, circle.getState());
+
+    toggleOverlay();
+    assertEquals(COMPLETING, circle.getState());
+
+    fixture.advance(COMPLETE_MILLIS);
+    assertEquals(COMPLETED, circle.getState());
+  }
+
+  /**
+   * The overlay fades the arc out through a layer of its own, so the arc view gets the drawable
+   * back as opaque as it was, and shows it fully once spinning again.
+   */
+  @Test public void arcFadedOutInTheOverlayIsOpaqueBackInTheView() {
+    circle.setArcOverlay(overlay);
+    circle.show();
+    fixture.advance(SHOW_MILLIS);
+    ProgressArcDrawable arcDrawable = drawableOf(circle.getProgressArc());
+
+    circle.hide();
+    fixture.advance(CircleFixture.FRAME_MILLIS * 3);
+    assertTrue(circle.getProgressArc().getAlpha() < 1);
+    assertEquals(255, arcDrawable.getAlpha());
+
+    circle.setArcOverlay(null);
+    circle.show();
+    fixture.advance(SHOW_MILLIS);
+    assertEquals(SPINNING, circle.getState());
+    assertSame(circle, circle.getProgressArc().getParent());
+    assertEquals(1, circle.getProgressArc().getAlpha(), 0);
+    assertEquals(255, arcDrawable.getAlpha());
+
+    circle.setArcOverlay(overlay);
+    fixture.frame();
+    assertEquals(255, arcDrawable.getAlpha());
+  }
+
+  /**
+   * Switches to the other mode and back. The arc must be neither stopped nor restarted by any of
+   * the switches, or by the frames drawn after them.
+   */
+  private void toggleOverlay() {
+    ProgressArcDrawable arcDrawable = drawableOf(circle.getProgressArc());
+    for (int i = 0; i < 2; i++) {
+      float startAngle = startAngleOf(arcDrawable);
+      float sweepAngle = sweepAngleOf(arcDrawable);
+
+      circle.setArcOverlay(circle.getProgressArc().getParent() == circle ? overlay : null);
+      assertEquals(startAngle, startAngleOf(arcDrawable), 0);
+      assertEquals(sweepAngle, sweepAngleOf(arcDrawable), 0);
+
+      fixture.frame();
+      assertSame(arcDrawable, drawableOf(circle.getProgressArc()));
+      assertTrue(arcDrawable.isRunning());
+    }
+  }
+}
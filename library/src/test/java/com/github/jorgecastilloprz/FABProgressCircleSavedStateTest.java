@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz;
+
+import android.graphics.Color;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.view.View;
+import com.github.jorgecastilloprz.listeners.FABProgressListener;
+import com.github.jorgecastilloprz.progressarc.ProgressArcDrawable;
+import com.github.jorgecastilloprz.progressarc.ProgressArcView;
+import com.github.jorgecastilloprz.progressarc.animations.ArcAnimationFactory;
+import com.github.jorgecastilloprz.tasks.BoundTask;
+import com.github.jorgecastilloprz.utils.AnimationUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.github.jorgecastilloprz.FABProgressCircle.State.COMPLETED;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.COMPLETING;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.IDLE;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.SPINNING;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.drawableOf;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.startAngleOf;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.sweepAngleOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Saves and restores FABProgressCircle states. Restored components must carry on from the saved
+ * point with the views and drawables they already had.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class FABProgressCircleSavedStateTest implements FABProgressListener {
+
+  private static final int FRAME_MILLIS = CircleFixture.FRAME_MILLIS;
+  private static final int RESET_REMAINING = 200;
+  private static final int RESET_FADE_OUT = 300;
+  private static final int COMPLETE_MILLIS =
+      ArcAnimationFactory.SWEEP_ANIM_DURATION * 2 + ArcAnimationFactory.COMPLETE_ANIM_DURATION
+          + 1000;
+
+  private CircleFixture fixture;
+  private FABProgressCircle circle;
+  private int animationEndCalls;
+
+  @Before public void setUp() {
+    fixture = CircleFixture.created();
+    circle = fixture.newCircle();
+    circle.setReusable(true);
+    circle.attachListener(this);
+    fixture.attach(circle);
+    fixture.layout();
+  }
+
+  @Test public void spinningArcIsSaved() {
+    circle.show();
+    fixture.advance(AnimationUtils.SHOW_SCALE_ANIM_DELAY + FRAME_MILLIS * 2);
+
+    FABProgressCircle.SavedState savedState =
+        (FABProgressCircle.SavedState) circle.onSaveInstanceState();
+    assertEquals(SPINNING, savedState.state);
+    assertTrue(savedState.elapsedMillis >= 0);
+  }
+
+  /**
+   * Like a configuration change: the state goes through a parcel and is restored into a new
+   * component before it gets attached, laid out and drawn. The arc must still be where a drawable
+   * spinning for the saved time would be, and complete once the task kept across the change is
+   * bound again and finishes.
+   */
+  @Test public void spinningArcCarriesOnInANewHierarchy() {
+    circle.show();
+    fixture.advance(AnimationUtils.SHOW_SCALE_ANIM_DELAY + 1300);
+    FABProgressCircle.SavedState savedState = throughParcel(circle.onSaveInstanceState());
+
+    CircleFixture recreated = CircleFixture.visible();
+    FABProgressCircle restored = recreated.newCircle();
+    restored.attachListener(this);
+    int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    restored.measure(spec, spec);
+    restored.onRestoreInstanceState(savedState);
+    recreated.attach(restored);
+    recreated.layout();
+    recreated.draw();
+
+    ProgressArcDrawable reference = new ProgressArcDrawable(1, Color.BLACK, false);
+    reference.startAt(savedState.elapsedMillis);
+    ProgressArcDrawable arcDrawable = drawableOf(restored.getProgressArc());
+    assertEquals(SPINNING, restored.getState());
+    assertTrue(arcDrawable.isRunning());
+    assertEquals(startAngleOf(reference), startAngleOf(arcDrawable), 0.001f);
+    assertEquals(sweepAngleOf(reference), sweepAngleOf(arcDrawable), 0.001f);
+    reference.stop();
+
+    BoundTask task = restored.bind(null);
+    assertEquals(SPINNING, restored.getState());
+    task.complete();
+    recreated.advance(COMPLETE_MILLIS);
+    assertEquals(COMPLETED, restored.getState());
+    assertEquals(1, animationEndCalls);
+  }
+
+  /**
+   * Two full grow / shrink cycles and 300ms into the next grow. The rotation is at 54 degrees,
+   * and the two cycles moved the tail of the arc 80 degrees back each.
+   */
+  @Test public void spinningArcCarriesOnWithTheSameViews() {
+    ProgressArcView progressArc = circle.getProgressArc();
+    ProgressArcDrawable arcDrawable = drawableOf(progressArc);
+
+    restore(SPINNING, 4300);
+
+    assertEquals(SPINNING, circle.getState());
+    assertSame(progressArc, circle.getProgressArc());
+    assertSame(arcDrawable, drawableOf(progressArc));
+    assertEquals(1, progressArc.getAlpha(), 0);
+    assertTrue(arcDrawable.isRunning());
+    assertEquals(54 - 160 + 360, normalize(startAngleOf(arcDrawable)), 0.001f);
+  }
+
+  /**
+   * The rotation is at 270 degrees. While shrinking, the head of the arc stays where the grow left
+   * it, 300 degrees ahead of the rotation.
+   */
+  @Test public void spinningArcCarriesOnIntoTheShrinkHalf() {
+    restore(SPINNING, 1500);
+
+    ProgressArcDrawable arcDrawable = drawableOf(circle.getProgressArc());
+    float headAngle = startAngleOf(arcDrawable) + sweepAngleOf(arcDrawable);
+    assertEquals(270 + 300 - 360, normalize(headAngle), 0.001f);
+  }
+
+  @Test public void completedStateResetsAfterTheRemainingCountdown() {
+    restore(COMPLETED, 0);
+
+    assertEquals(COMPLETED, circle.getState());
+    assertEquals(View.VISIBLE, circle.getCompleteFABView().getVisibility());
+    assertEquals(0, animationEndCalls);
+
+    fixture.advance(RESET_REMAINING + RESET_FADE_OUT + FRAME_MILLIS * 4);
+    assertEquals(IDLE, circle.getState());
+  }
+
+  @Test public void runningCompletionIsRestoredAsFinished() {
+    restore(COMPLETING, 0);
+
+    assertEquals(COMPLETED, circle.getState());
+    assertEquals(1, animationEndCalls);
+  }
+
+  @Override public void onFABProgressAnimationEnd() {
+    animationEndCalls++;
+  }
+
+  private void restore(FABProgressCircle.State state, long elapsedMillis) {
+    FABProgressCircle.SavedState savedState =
+        new FABProgressCircle.SavedState(View.BaseSavedState.EMPTY_STATE);
+    savedState.state = state;
+    savedState.elapsedMillis = elapsedMillis;
+    savedState.resetRemainingMillis = RESET_REMAINING;
+    circle.onRestoreInstanceState(savedState);
+  }
+
+  private static FABProgressCircle.SavedState throughParcel(Parcelable savedState) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      ((FABProgressCircle.SavedState) savedState).writeToParcel(parcel, 0);
+      parcel.setDataPosition(0);
+      return FABProgressCircle.SavedState.CREATOR.createFromParcel(parcel);
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  private static float normalize(float angle) {
+    float normalized = angle % 360f;
+    return normalized < 0 ? normalized + 360f : normalized;
+  }
+}
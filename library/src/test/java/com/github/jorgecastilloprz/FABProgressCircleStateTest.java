@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.view.View;
+import com.github.jorgecastilloprz.listeners.FABProgressStateListener;
+import com.github.jorgecastilloprz.utils.AnimationUtils;
+import com.github.jorgecastilloprz.utils.ViewPropertyAnimation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.github.jorgecastilloprz.FABProgressCircle.State.COMPLETED;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.COMPLETING;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.IDLE;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.RESETTING;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.SHOWING;
+import static com.github.jorgecastilloprz.FABProgressCircle.State.SPINNING;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.drawableOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hammers a reusable FABProgressCircle with random sequences of public calls, time steps, draw
+ * passes, window detaches and visibility changes. Every state transition must be a valid one, no
+ * animator may ever be started while it is already running, and the arc drawable must only run
+ * while the arc is spinning.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class FABProgressCircleStateTest implements FABProgressStateListener {
+
+  private static final int FRAME_MILLIS = CircleFixture.FRAME_MILLIS;
+  private static final int RESET_DELAY = 400;
+  private static final int MIN_SHOW_TIME = 300;
+  private static final int SEEDS = 20;
+  private static final int OPERATIONS_PER_SEED = 300;
+
+  private static final Map<FABProgressCircle.State, Set<FABProgressCircle.State>> TRANSITIONS =
+      new EnumMap<>(FABProgressCircle.State.class);
+
+  static {
+    TRANSITIONS.put(IDLE, EnumSet.of(SHOWING));
+    TRANSITIONS.put(SHOWING, EnumSet.of(SPINNING, COMPLETING, IDLE));
+    TRANSITIONS.put(SPINNING, EnumSet.of(COMPLETING, IDLE));
+    TRANSITIONS.put(COMPLETING, EnumSet.of(COMPLETED));
+    TRANSITIONS.put(COMPLETED, EnumSet.of(RESETTING));
+    TRANSITIONS.put(RESETTING, EnumSet.of(IDLE));
+  }
+
+  private final Set<Animator> guardedAnimators =
+      Collections.newSetFromMap(new IdentityHashMap<Animator, Boolean>());
+  private final List<String> failures = new ArrayList<>();
+
+  private CircleFixture fixture;
+  private FABProgressCircle circle;
+  private FABProgressCircle.State observedState;
+  private int transitions;
+
+  @Before public void setUp() {
+    fixture = CircleFixture.visible();
+    circle = fixture.newCircle();
+    circle.setReusable(true);
+    circle.setResetDelay(RESET_DELAY);
+    circle.attachStateListener(this);
+    fixture.attach(circle);
+    fixture.layout();
+    observedState = circle.getState();
+  }
+
+  @Test public void randomCallSequencesNeverStartAnAnimatorTwice() {
+    for (int seed = 0; seed < SEEDS; seed++) {
+      Random random = new Random(seed);
+      for (int i = 0; i < OPERATIONS_PER_SEED; i++) {
+        perform(random);
+        guardAnimators();
+        checkArcDrawable();
+        assertTrue("seed " + seed + ", operation " + i + ": " + failures, failures.isEmpty());
+      }
+      settle();
+    }
+    assertTrue("No transition was observed", transitions > 0);
+  }
+
+  @Test public void redundantCallsAreIgnored() {
+    circle.show();
+    circle.show();
+    assertEquals(SHOWING, circle.getState());
+
+    advance(1000);
+    circle.show();
+    circle.showSegmented(2);
+    assertEquals(SPINNING, circle.getState());
+
+    circle.hide();
+    circle.hide();
+    circle.beginFinalAnimation();
+    assertEquals(IDLE, circle.getState());
+    assertEquals(3, transitions);
+  }
+
+  @Test public void completeBeforeShowDelaySkipsTheArc() {
+    circle.show();
+    circle.beginFinalAnimation();
+    circle.beginFinalAnimation();
+    assertEquals(COMPLETING, circle.getState());
+
+    advance(1000);
+    assertEquals(COMPLETED, circle.getState());
+  }
+
+  @Test public void hideWaitsForMinShowTime() {
+    circle.setMinShowTime(MIN_SHOW_TIME);
+    circle.show();
+    advance(AnimationUtils.SHOW_SCALE_ANIM_DELAY + FRAME_MILLIS * 2);
+    assertEquals(SPINNING, circle.getState());
+
+    circle.hide();
+    circle.beginFinalAnimation();
+    assertEquals(SPINNING, circle.getState());
+
+    advance(MIN_SHOW_TIME);
+    assertEquals(IDLE, circle.getState());
+  }
+
+  /**
+   * A task started while the previous one is being hidden takes the arc over, and can still
+   * complete.
+   */
+  @Test public void showCancelsAHideWaitingForMinShowTime() {
+    circle.setMinShowTime(MIN_SHOW_TIME);
+    circle.show();
+    advance(AnimationUtils.SHOW_SCALE_ANIM_DELAY + FRAME_MILLIS * 2);
+
+    circle.hide();
+    circle.show();
+    advance(MIN_SHOW_TIME * 2);
+    assertEquals(SPINNING, circle.getState());
+    assertTrue(drawableOf(circle.getProgressArc()).isRunning());
+
+    circle.beginFinalAnimation();
+    assertEquals(COMPLETING, circle.getState());
+    assertEquals(3, transitions);
+  }
+
+  @Test public void invalidSegmentCountsDoNotChangeTheState() {
+    for (int taskCount : new int[] { 0, -1 }) {
+      try {
+        circle.showSegmented(taskCount);
+        throw new AssertionError("showSegmented(" + taskCount + ") was accepted");
+      } catch (IllegalArgumentException expected) {
+        assertEquals(IDLE, circle.getState());
+      }
+    }
+
+    circle.showSegmented(200);
+    assertEquals(SHOWING, circle.getState());
+    assertEquals(1, transitions);
+  }
+
+  @Override public void onStateChanged(FABProgressCircle.State previous,
+      FABProgressCircle.State current) {
+    transitions++;
+    if (previous != observedState) {
+      failures.add("transition from " + previous + " but last observed state was " + observedState);
+    }
+    if (!TRANSITIONS.get(previous).contains(current)) {
+      failures.add("invalid transition " + previous + " -> " + current);
+    }
+    observedState = current;
+  }
+
+  private void perform(Random random) {
+    switch (random.nextInt(10)) {
+      case 0:
+        circle.show();
+        break;
+      case 1:
+        circle.showSegmented(1 + random.nextInt(4));
+        break;
+      case 2:
+        circle.hide();
+        break;
+      case 3:
+        circle.beginFinalAnimation();
+        break;
+      case 4:
+        advance(RESET_DELAY * 4);
+        break;
+      case 5:
+        if (circle.getParent() != null) {
+          fixture.detach(circle);
+        } else {
+          fixture.attach(circle);
+        }
+        break;
+      case 6:
+        circle.setVisibility(circle.getVisibility() == View.VISIBLE ? View.INVISIBLE : View.VISIBLE);
+        break;
+      case 7:
+        fixture.draw();
+        break;
+      default:
+        advance(random.nextInt(40) * FRAME_MILLIS);
+    }
+  }
+
+  /**
+   * Lets every running transition finish, so the next sequence starts from a resting state.
+   */
+  private void settle() {
+    if (circle.getParent() == null) {
+      fixture.attach(circle);
+    }
+    circle.setVisibility(View.VISIBLE);
+    circle.hide();
+    advance(10000);
+    assertEquals(IDLE, circle.getState());
+  }
+
+  private void checkArcDrawable() {
+    if (circle.getProgressArc() == null) {
+      return;
+    }
+    boolean running = drawableOf(circle.getProgressArc()).isRunning();
+    if (circle.getState() == SPINNING) {
+      assertTrue("arc drawable stopped while spinning", running);
+    } else if (circle.getState() == IDLE) {
+      assertFalse("arc drawable running while idle", running);
+    }
+  }
+
+  private void advance(int millis) {
+    for (int elapsed = 0; elapsed < millis; elapsed += FRAME_MILLIS) {
+      fixture.frame();
+      guardAnimators();
+      checkArcDrawable();
+    }
+  }
+
+  /**
+   * Child views and their animators are created lazily, so new ones are looked for after every
+   * step.
+   */
+  private void guardAnimators() {
+    if (circle.getProgressArc() != null) {
+      guardAnimatorsOf(circle.getProgressArc());
+      guardAnimatorsOf(drawableOf(circle.getProgressArc()));
+    }
+    if (circle.getCompleteFABView() != null) {
+      guardAnimatorsOf(circle.getCompleteFABView());
+    }
+  }
+
+  /**
+   * Every animator held by the target is guarded, whatever its name, so new animators are covered
+   * without changing this test.
+   */
+  private void guardAnimatorsOf(Object target) {
+    for (Field field : target.getClass().getDeclaredFields()) {
+      Object value = valueOf(field, target);
+      Animator animator = null;
+      if (value instanceof Animator) {
+        animator = (Animator) value;
+      } else if (value instanceof ViewPropertyAnimation) {
+        animator = ((ViewPropertyAnimation) value).getAnimator();
+      }
+
+      if (animator != null && guardedAnimators.add(animator)) {
+        String name = target.getClass().getSimpleName() + "." + field.getName();
+        animator.addListener(new StartGuard(name));
+      }
+    }
+  }
+
+  private static Object valueOf(Field field, Object target) {
+    try {
+      field.setAccessible(true);
+      return field.get(target);
+    } catch (IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private class StartGuard extends AnimatorListenerAdapter {
+
+    private final String name;
+    private boolean running;
+
+    StartGuard(String name) {
+      this.name = name;
+    }
+
+    @Override public void onAnimationStart(Animator animation) {
+      if (running) {
+        failures.add(name + " started while already running, state " + circle.getState());
+      }
+      running = true;
+    }
+
+    @Override public void onAnimationEnd(Animator animation) {
+      running = false;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz;
+
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.ShapeDrawable;
+import android.graphics.drawable.shapes.OvalShape;
+import android.widget.ImageView;
+import com.github.jorgecastilloprz.library.R;
+import com.github.jorgecastilloprz.progressarc.ProgressArcDrawable;
+import com.github.jorgecastilloprz.progressarc.ProgressArcView;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.colorOf;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.drawableOf;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.isRoundedStroke;
+import static com.github.jorgecastilloprz.progressarc.ArcInspector.strokeWidthOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Changes the style of a laid out FABProgressCircle. The existing views and drawable must be
+ * updated in place, and only the arc width may lay the component out again.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class FABProgressCircleStyleTest {
+
+  private CircleFixture fixture;
+  private FABProgressCircle circle;
+  private ProgressArcView progressArc;
+  private ProgressArcDrawable arcDrawable;
+  private int childCount;
+
+  @Before public void setUp() {
+    fixture = CircleFixture.visible();
+    circle = fixture.newCircle();
+    fixture.attach(circle);
+    fixture.layout();
+    fixture.draw();
+    fixture.root.invalidations = 0;
+
+    progressArc = circle.getProgressArc();
+    arcDrawable = drawableOf(progressArc);
+    childCount = circle.getChildCount();
+  }
+
+  @Test public void componentsCreatedFromCodeGetTheDefaultStyle() {
+    int defaultWidth =
+        circle.getResources().getDimensionPixelSize(R.dimen.progress_arc_stroke_width);
+
+    assertEquals(circle.getResources().getColor(R.color.fab_orange_dark), colorOf(arcDrawable));
+    assertEquals(defaultWidth, strokeWidthOf(arcDrawable), 0);
+    assertEquals(fixture.fabSize + defaultWidth, progressArc.getMeasuredWidth());
+  }
+
+  /**
+   * Only the arc is redrawn. The completion view is not showing, so its tint is not redrawn yet.
+   */
+  @Test public void arcColorIsUpdatedWithASingleInvalidation() {
+    circle.setArcColor(Color.BLUE);
+
+    assertFalse(fixture.root.isLayoutRequested());
+    assertEquals(1, fixture.root.invalidations);
+    assertEquals(Color.BLUE, colorOf(arcDrawable));
+    assertSameViews();
+  }
+
+  @Test public void roundedStrokeIsUpdatedWithoutLayout() {
+    circle.setRoundedStroke(true);
+
+    assertFalse(fixture.root.isLayoutRequested());
+    assertEquals(1, fixture.root.invalidations);
+    assertTrue(isRoundedStroke(arcDrawable));
+    assertSameViews();
+  }
+
+  @Test public void arcColorKeepsTheArcAlpha() {
+    arcDrawable.setAlpha(128);
+    circle.setArcColor(Color.BLUE);
+
+    assertEquals(128, arcDrawable.getAlpha());
+    assertEquals(Color.argb(128, 0, 0, 255), colorOf(arcDrawable));
+  }
+
+  /**
+   * The new size redraws the arc, so there is nothing to invalidate before the layout pass.
+   */
+  @Test public void arcWidthResizesTheExistingArcView() {
+    circle.setArcWidth(40);
+
+    assertTrue(fixture.root.isLayoutRequested());
+    assertEquals(0, fixture.root.invalidations);
+    fixture.layout();
+    assertEquals(40, strokeWidthOf(arcDrawable), 0);
+    assertEquals(fixture.fabSize + 40, progressArc.getMeasuredWidth());
+    assertSameViews();
+  }
+
+  @Test public void finalIconIsSetIntoTheExistingIconView() {
+    ImageView icon = (ImageView) circle.getCompleteFABView().findViewById(R.id.completeFabIcon);
+    Drawable finalIcon = new ShapeDrawable(new OvalShape());
+
+    circle.setFinalIcon(finalIcon);
+
+    assertFalse(fixture.root.isLayoutRequested());
+    assertSame(finalIcon, icon.getDrawable());
+    assertSameViews();
+  }
+
+  @Test public void unchangedValuesAreIgnored() {
+    circle.setArcWidth((int) strokeWidthOf(arcDrawable));
+    circle.setCircleSize(FABProgressCircle.SIZE_NORMAL);
+
+    assertFalse(fixture.root.isLayoutRequested());
+    assertEquals(0, fixture.root.invalidations);
+  }
+
+  private void assertSameViews() {
+    assertEquals(childCount, circle.getChildCount());
+    assertSame(progressArc, circle.getProgressArc());
+    assertSame(arcDrawable, drawableOf(progressArc));
+  }
+}
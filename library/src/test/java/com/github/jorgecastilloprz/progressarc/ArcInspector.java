@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.progressarc;
+
+/**
+ * Reads the arc state kept package-private in {@link ProgressArcView} and
+ * {@link ProgressArcDrawable}, for the tests living outside of this package.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class ArcInspector {
+
+  private ArcInspector() {
+  }
+
+  public static ProgressArcDrawable drawableOf(ProgressArcView progressArc) {
+    return progressArc.getArcDrawable();
+  }
+
+  public static float startAngleOf(ProgressArcDrawable arcDrawable) {
+    return arcDrawable.getStartAngle();
+  }
+
+  public static float sweepAngleOf(ProgressArcDrawable arcDrawable) {
+    return arcDrawable.getSweepAngle();
+  }
+
+  public static int colorOf(ProgressArcDrawable arcDrawable) {
+    return arcDrawable.getColor();
+  }
+
+  public static float strokeWidthOf(ProgressArcDrawable arcDrawable) {
+    return arcDrawable.getStrokeWidth();
+  }
+
+  public static boolean isRoundedStroke(ProgressArcDrawable arcDrawable) {
+    return arcDrawable.isRoundedStroke();
+  }
+}
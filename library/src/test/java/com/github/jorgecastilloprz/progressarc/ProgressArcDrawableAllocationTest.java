@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.progressarc;
+
+import android.animation.ValueAnimator;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import com.github.jorgecastilloprz.stress.AllocationCounter;
+import java.lang.reflect.Field;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocation gate for the per frame path: animator updates (and so
+ * {@code AnimationUtils.getAnimatedFraction}) plus {@link ProgressArcDrawable#draw}. After a warm
+ * up, no steady state frame is allowed to allocate at all. Show, complete and reset transitions
+ * are allowed to allocate, but only up to the budgets stated below.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class ProgressArcDrawableAllocationTest {
+
+  private static final int FRAME_MILLIS = 16;
+  private static final int WARM_UP_FRAMES = 200;
+  private static final int MEASURED_FRAMES = 5000;
+
+  private static final long STEADY_FRAME_BUDGET_BYTES = 0;
+  private static final long SHOW_BUDGET_BYTES = 4 * 1024;
+  private static final long COMPLETE_BUDGET_BYTES = 4 * 1024;
+  private static final long RESET_BUDGET_BYTES = 4 * 1024;
+
+  private ProgressArcDrawable drawable;
+  private Canvas canvas;
+  private AllocationCounter allocations;
+
+  @Before public void setUp() {
+    drawable = new ProgressArcDrawable(4, Color.RED, true);
+    drawable.setBounds(0, 0, 100, 100);
+    canvas = new NullCanvas();
+    allocations = new AllocationCounter();
+  }
+
+  @Test public void growingFramesDoNotAllocate() throws Exception {
+    drawable.start();
+    assertSteadyFramesDoNotAllocate(animator("rotateAnim"), animator("growAnim"));
+  }
+
+  @Test public void shrinkingFramesDoNotAllocate() throws Exception {
+    drawable.start();
+    assertSteadyFramesDoNotAllocate(animator("rotateAnim"), animator("shrinkAnim"));
+  }
+
+  @Test public void completeFramesDoNotAllocate() throws Exception {
+    drawable.start();
+    assertSteadyFramesDoNotAllocate(animator("rotateAnim"), animator("completeAnim"));
+  }
+
+  /**
+   * The segments path is only rebuilt on progress updates, so frames between updates must draw
+   * the cached one without allocating.
+   */
+  @Test public void segmentedFramesDoNotAllocate() {
+    float[] progress = new float[20];
+    for (int i = 0; i < progress.length; i++) {
+      progress[i] = (float) i / progress.length;
+    }
+    drawable.startSegments(progress.length);
+    drawable.updateSegments(progress);
+
+    for (int i = 0; i < WARM_UP_FRAMES + MEASURED_FRAMES; i++) {
+      allocations.start();
+      drawable.draw(canvas);
+      assertFrameWithinBudget(i, allocations.stop());
+    }
+  }
+
+  @Test public void showTransitionStaysWithinBudget() {
+    drawable.start();
+    drawable.stop();
+
+    allocations.start();
+    drawable.start();
+    assertWithinBudget("show", allocations.stop(), SHOW_BUDGET_BYTES);
+  }
+
+  @Test public void completeTransitionStaysWithinBudget() throws Exception {
+    drawable.start();
+    ValueAnimator shrinkAnim = animator("shrinkAnim");
+
+    allocations.start();
+    drawable.requestCompleteAnimation(new ArcListener() {
+      @Override public void onArcShown() {
+      }
+
+      @Override public void onArcAnimationComplete() {
+      }
+    });
+    shrinkAnim.end();
+    assertWithinBudget("complete", allocations.stop(), COMPLETE_BUDGET_BYTES);
+  }
+
+  @Test public void resetTransitionStaysWithinBudget() {
+    drawable.start();
+
+    allocations.start();
+    drawable.reset();
+    assertWithinBudget("reset", allocations.stop(), RESET_BUDGET_BYTES);
+  }
+
+  private void assertSteadyFramesDoNotAllocate(ValueAnimator rotateAnim, ValueAnimator sweepAnim) {
+    long rotateDuration = rotateAnim.getDuration();
+    long sweepDuration = sweepAnim.getDuration();
+    for (int i = 0; i < WARM_UP_FRAMES + MEASURED_FRAMES; i++) {
+      long playTime = (long) i * FRAME_MILLIS;
+
+      allocations.start();
+      rotateAnim.setCurrentPlayTime(playTime % rotateDuration);
+      sweepAnim.setCurrentPlayTime(playTime % sweepDuration);
+      drawable.draw(canvas);
+      assertFrameWithinBudget(i, allocations.stop());
+    }
+  }
+
+  private void assertFrameWithinBudget(int frame, long allocated) {
+    if (frame >= WARM_UP_FRAMES) {
+      assertTrue("Frame " + frame + " allocated " + allocated + " bytes",
+          allocated <= STEADY_FRAME_BUDGET_BYTES);
+    }
+  }
+
+  private void assertWithinBudget(String transition, long allocated, long budget) {
+    assertTrue(transition + " transition allocated " + allocated + " bytes, budget is " + budget,
+        allocated <= budget);
+  }
+
+  private ValueAnimator animator(String name) throws Exception {
+    Field field = ProgressArcDrawable.class.getDeclaredField(name);
+    field.setAccessible(true);
+    return (ValueAnimator) field.get(drawable);
+  }
+
+  /**
+   * Discards every draw call, so only the allocations done by the library are measured.
+   */
+  private static class NullCanvas extends Canvas {
+
+    @Override public void drawArc(RectF oval, float startAngle, float sweepAngle,
+        boolean useCenter, Paint paint) {
+    }
+
+    @Override public void drawPath(Path path, Paint paint) {
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.progressarc;
+
+import android.animation.ValueAnimator;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import com.github.jorgecastilloprz.progressarc.animations.ArcAnimationFactory;
+import com.github.jorgecastilloprz.stress.AllocationCounter;
+import java.lang.reflect.Field;
+import java.util.Locale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Simulates 24 hours of spinning, one grow / shrink cycle after another, and checks that the
+ * drawn start angle stays as precise as on the first cycle (compared against a double precision
+ * reference), that the angle state stays bounded, and that frames cost the same at the end as at
+ * the beginning.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class ProgressArcDrawableSoakBenchmark {
+
+  private static final long SOAK_MILLIS = 24L * 60 * 60 * 1000;
+  private static final int CYCLE_MILLIS = ArcAnimationFactory.SWEEP_ANIM_DURATION * 2;
+  private static final int SAMPLE_MILLIS = 333;
+  private static final float MAX_ANGLE_ERROR = 0.01f;
+  private static final int TIMED_FRAMES = 20000;
+
+  private final RecordingCanvas canvas = new RecordingCanvas();
+  private ProgressArcDrawable drawable;
+  private double referenceOffset;
+
+  @Test public void angleStaysPreciseAndFramesCostTheSameAfterADay() throws Exception {
+    drawable = new ProgressArcDrawable(4, Color.RED, true);
+    drawable.setBounds(0, 0, 100, 100);
+    drawable.start();
+    ValueAnimator rotateAnim = animator("rotateAnim");
+    ValueAnimator growAnim = animator("growAnim");
+    ValueAnimator shrinkAnim = animator("shrinkAnim");
+
+    long firstNanos = timeFrames(rotateAnim, growAnim);
+    float maxError = 0;
+    long cycles = SOAK_MILLIS / CYCLE_MILLIS;
+    for (long cycle = 0; cycle < cycles; cycle++) {
+      long rotatePlayTime = (cycle * CYCLE_MILLIS) % ArcAnimationFactory.ROTATE_ANIMATOR_DURATION;
+
+      rotateAnim.setCurrentPlayTime(rotatePlayTime + SAMPLE_MILLIS);
+      growAnim.setCurrentPlayTime(SAMPLE_MILLIS);
+      maxError = Math.max(maxError, drawAndMeasureError(true));
+      growAnim.end();
+      referenceOffset += 360 - ArcAnimationFactory.MAXIMUM_SWEEP_ANGLE;
+
+      shrinkAnim.setCurrentPlayTime(SAMPLE_MILLIS);
+      maxError = Math.max(maxError, drawAndMeasureError(false));
+      shrinkAnim.end();
+      referenceOffset += ArcAnimationFactory.MINIMUM_SWEEP_ANGLE;
+    }
+    long lastNanos = timeFrames(rotateAnim, growAnim);
+    long lastBytes = allocatedPerFrame(rotateAnim, growAnim);
+
+    float offset = floatField("currentRotationAngleOffset");
+    System.out.println(String.format(Locale.US,
+        "24h soak (%d cycles): max start angle error %.5f, offset %.2f, "
+            + "frame cost first %d ns, last %d ns, last %d bytes", cycles, maxError, offset,
+        firstNanos / TIMED_FRAMES, lastNanos / TIMED_FRAMES, lastBytes));
+    assertTrue("Start angle error " + maxError, maxError <= MAX_ANGLE_ERROR);
+    assertTrue("Offset " + offset + " is not normalized", offset >= 0 && offset < 360);
+    assertEquals(0, lastBytes);
+  }
+
+  /**
+   * Compares the drawn start angle modulo 360 against the one computed with the double
+   * precision reference offset.
+   */
+  private float drawAndMeasureError(boolean growing) throws Exception {
+    drawable.draw(canvas);
+    double rotation = floatField("currentRotationAngle");
+    double expected = rotation - referenceOffset;
+    if (!growing) {
+      expected += 360 - canvas.sweepAngle;
+    }
+    double difference = ((canvas.startAngle - expected) % 360 + 360) % 360;
+    return (float) Math.min(difference, 360 - difference);
+  }
+
+  private long timeFrames(ValueAnimator rotateAnim, ValueAnimator sweepAnim) {
+    long start = System.nanoTime();
+    for (int i = 0; i < TIMED_FRAMES; i++) {
+      stepFrame(rotateAnim, sweepAnim, i);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private long allocatedPerFrame(ValueAnimator rotateAnim, ValueAnimator sweepAnim) {
+    AllocationCounter allocations = new AllocationCounter();
+    long max = 0;
+    for (int i = 0; i < TIMED_FRAMES; i++) {
+      allocations.start();
+      stepFrame(rotateAnim, sweepAnim, i);
+      max = Math.max(max, allocations.stop());
+    }
+    return max;
+  }
+
+  private void stepFrame(ValueAnimator rotateAnim, ValueAnimator sweepAnim, int frame) {
+    long playTime = frame * 16L;
+    rotateAnim.setCurrentPlayTime(playTime % rotateAnim.getDuration());
+    sweepAnim.setCurrentPlayTime(playTime % sweepAnim.getDuration());
+    drawable.draw(canvas);
+  }
+
+  private ValueAnimator animator(String name) throws Exception {
+    Field field = ProgressArcDrawable.class.getDeclaredField(name);
+    field.setAccessible(true);
+    return (ValueAnimator) field.get(drawable);
+  }
+
+  private float floatField(String name) throws Exception {
+    Field field = ProgressArcDrawable.class.getDeclaredField(name);
+    field.setAccessible(true);
+    return field.getFloat(drawable);
+  }
+
+  /**
+   * Keeps the last drawn arc instead of drawing it.
+   */
+  private static class RecordingCanvas extends Canvas {
+
+    float startAngle;
+    float sweepAngle;
+
+    @Override public void drawArc(RectF oval, float startAngle, float sweepAngle,
+        boolean useCenter, Paint paint) {
+      this.startAngle = startAngle;
+      this.sweepAngle = sweepAngle;
+    }
+  }
+}
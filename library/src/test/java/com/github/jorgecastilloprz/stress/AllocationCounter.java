@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.stress;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the current thread between two points, using the HotSpot thread
+ * allocation counters. The cost of reading the counter itself is measured once and subtracted,
+ * so an allocation free block reports zero.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public final class AllocationCounter {
+
+  private static final int CALIBRATION_ROUNDS = 32;
+
+  private final com.sun.management.ThreadMXBean threadBean;
+  private final long threadId;
+  private final long overhead;
+  private long start;
+
+  public AllocationCounter() {
+    threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    threadId = Thread.currentThread().getId();
+    overhead = calibrate();
+  }
+
+  private long calibrate() {
+    long min = Long.MAX_VALUE;
+    for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+      long before = threadBean.getThreadAllocatedBytes(threadId);
+      long after = threadBean.getThreadAllocatedBytes(threadId);
+      min = Math.min(min, after - before);
+    }
+    return min;
+  }
+
+  public void start() {
+    start = threadBean.getThreadAllocatedBytes(threadId);
+  }
+
+  /**
+   * @return bytes allocated since the last {@link #start()} call.
+   */
+  public long stop() {
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - start - overhead;
+    return Math.max(allocated, 0);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.stress;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Canvas counting the draw operations issued into it, as a proxy for the rendering cost of a
+ * frame. Only the operations used by the library and the stand-in FABs are counted.
+ *
+ * @author Jorge Castillo Pérez
+ */
+class CountingCanvas extends Canvas {
+
+  private long drawOps;
+
+  CountingCanvas(Bitmap bitmap) {
+    super(bitmap);
+  }
+
+  long getDrawOps() {
+    return drawOps;
+  }
+
+  void resetDrawOps() {
+    drawOps = 0;
+  }
+
+  @Override public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter,
+      Paint paint) {
+    drawOps++;
+    super.drawArc(oval, startAngle, sweepAngle, useCenter, paint);
+  }
+
+  @Override public void drawPath(Path path, Paint paint) {
+    drawOps++;
+    super.drawPath(path, paint);
+  }
+
+  @Override public void drawOval(RectF oval, Paint paint) {
+    drawOps++;
+    super.drawOval(oval, paint);
+  }
+
+  @Override public void drawCircle(float cx, float cy, float radius, Paint paint) {
+    drawOps++;
+    super.drawCircle(cx, cy, radius, paint);
+  }
+
+  @Override public void drawRect(RectF rect, Paint paint) {
+    drawOps++;
+    super.drawRect(rect, paint);
+  }
+
+  @Override public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    drawOps++;
+    super.drawRect(left, top, right, bottom, paint);
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    drawOps++;
+    super.drawBitmap(bitmap, left, top, paint);
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+    drawOps++;
+    super.drawBitmap(bitmap, src, dst, paint);
+  }
+
+  @Override public void drawPaint(Paint paint) {
+    drawOps++;
+    super.drawPaint(paint);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.stress;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.ViewParent;
+import android.widget.LinearLayout;
+
+/**
+ * Root of the stress scene. Every invalidation coming from any descendant walks up through it, so
+ * it is the single place where they can be counted. Measure and layout passes are counted too.
+ *
+ * @author Jorge Castillo Pérez
+ */
+class InvalidationCountingLayout extends LinearLayout {
+
+  private long invalidations;
+  private long measurePasses;
+  private long layoutPasses;
+
+  InvalidationCountingLayout(Context context) {
+    super(context);
+    setOrientation(VERTICAL);
+  }
+
+  @Override public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+    invalidations++;
+    return super.invalidateChildInParent(location, dirty);
+  }
+
+  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    measurePasses++;
+    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+  }
+
+  @Override protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    layoutPasses++;
+    super.onLayout(changed, l, t, r, b);
+  }
+
+  long getInvalidations() {
+    return invalidations;
+  }
+
+  long getMeasurePasses() {
+    return measurePasses;
+  }
+
+  long getLayoutPasses() {
+    return layoutPasses;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.stress;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Metrics collected by {@link StressScene}, one entry per scene size and phase. It is written as
+ * a JSON file with stable key order, so CI can diff it against a baseline.
+ *
+ * @author Jorge Castillo Pérez
+ */
+class StressReport {
+
+  static class PhaseMetrics {
+
+    final String phase;
+    private final long[] frameNanos;
+    private int frames;
+    long invalidations;
+    long drawOps;
+    int maxRunningAnimators;
+
+    PhaseMetrics(String phase, int maxFrames) {
+      this.phase = phase;
+      this.frameNanos = new long[maxFrames];
+    }
+
+    void addFrame(long nanos) {
+      if (frames < frameNanos.length) {
+        frameNanos[frames++] = nanos;
+      }
+    }
+
+    int getFrames() {
+      return frames;
+    }
+
+    double getAverageFrameMillis() {
+      if (frames == 0) {
+        return 0;
+      }
+      long total = 0;
+      for (int i = 0; i < frames; i++) {
+        total += frameNanos[i];
+      }
+      return total / (double) frames / 1e6;
+    }
+
+    double getPercentileFrameMillis(double percentile) {
+      if (frames == 0) {
+        return 0;
+      }
+      long[] sorted = Arrays.copyOf(frameNanos, frames);
+      Arrays.sort(sorted);
+      int index = (int) Math.min(frames - 1, Math.ceil(percentile * frames) - 1);
+      return sorted[Math.max(index, 0)] / 1e6;
+    }
+  }
+
+  static class SceneMetrics {
+
+    final int instances;
+    final List<PhaseMetrics> phases = new ArrayList<>();
+    long heapGrowthBytes;
+
+    SceneMetrics(int instances) {
+      this.instances = instances;
+    }
+  }
+
+  private final List<SceneMetrics> scenes = new ArrayList<>();
+
+  void add(SceneMetrics scene) {
+    scenes.add(scene);
+  }
+
+  List<SceneMetrics> getScenes() {
+    return scenes;
+  }
+
+  void writeTo(File file) throws IOException {
+    file.getParentFile().mkdirs();
+    Writer writer = new FileWriter(file);
+    try {
+      writer.write(toJson());
+    } finally {
+      writer.close();
+    }
+  }
+
+  String toJson() {
+    StringBuilder json = new StringBuilder("{\n  \"scenes\": [\n");
+    for (int i = 0; i < scenes.size(); i++) {
+      SceneMetrics scene = scenes.get(i);
+      json.append("    {\n");
+      json.append("      \"instances\": ").append(scene.instances).append(",\n");
+      json.append("      \"heapGrowthKb\": ").append(scene.heapGrowthBytes / 1024).append(",\n");
+      json.append("      \"phases\": [\n");
+      for (int j = 0; j < scene.phases.size(); j++) {
+        appendPhase(json, scene.phases.get(j));
+        json.append(j < scene.phases.size() - 1 ? ",\n" : "\n");
+      }
+      json.append("      ]\n    }");
+      json.append(i < scenes.size() - 1 ? ",\n" : "\n");
+    }
+    return json.append("  ]\n}\n").toString();
+  }
+
+  private void appendPhase(StringBuilder json, PhaseMetrics phase) {
+    int frames = Math.max(phase.getFrames(), 1);
+    json.append("        {")
+        .append("\"phase\": \"").append(phase.phase).append("\", ")
+        .append("\"frames\": ").append(phase.getFrames()).append(", ")
+        .append("\"avgFrameMs\": ").append(format(phase.getAverageFrameMillis())).append(", ")
+        .append("\"p95FrameMs\": ").append(format(phase.getPercentileFrameMillis(0.95))).append(", ")
+        .append("\"maxFrameMs\": ").append(format(phase.getPercentileFrameMillis(1))).append(", ")
+        .append("\"invalidationsPerFrame\": ")
+        .append(format(phase.invalidations / (double) frames)).append(", ")
+        .append("\"drawOpsPerFrame\": ").append(format(phase.drawOps / (double) frames)).append(", ")
+        .append("\"maxRunningAnimators\": ").append(phase.maxRunningAnimators)
+        .append("}");
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.US, "%.3f", value);
+  }
+}
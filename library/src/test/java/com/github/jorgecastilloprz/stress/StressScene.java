@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.stress;
+
+import android.animation.ValueAnimator;
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.drawable.ShapeDrawable;
+import android.graphics.drawable.shapes.OvalShape;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageButton;
+import android.widget.LinearLayout;
+import com.github.jorgecastilloprz.FABProgressCircle;
+import com.github.jorgecastilloprz.completefab.CompleteFABView;
+import com.github.jorgecastilloprz.library.R;
+import com.github.jorgecastilloprz.listeners.FABProgressListener;
+import com.github.jorgecastilloprz.progressarc.animations.ArcAnimationFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import org.robolectric.Robolectric;
+
+import static com.github.jorgecastilloprz.utils.AnimationUtils.SHOW_SCALE_ANIM_DELAY;
+
+/**
+ * Inflates N reusable FABProgressCircles into a single window and drives all of them through
+ * show, spin, complete and reset, one 16ms frame at a time over the paused main looper. Every
+ * frame advances the looper, relayouts if needed and draws the whole tree, like a real frame
+ * would do.
+ *
+ * @author Jorge Castillo Pérez
+ */
+class StressScene implements FABProgressListener {
+
+  static final int FRAME_MILLIS = 16;
+
+  private static final int SHOW_MILLIS = SHOW_SCALE_ANIM_DELAY + 250;
+  private static final int SPIN_MILLIS = ArcAnimationFactory.SWEEP_ANIM_DURATION * 2;
+  private static final int COMPLETE_MILLIS =
+      ArcAnimationFactory.SWEEP_ANIM_DURATION * 2 + ArcAnimationFactory.COMPLETE_ANIM_DURATION
+          + 500;
+  private static final int RESET_MILLIS = CompleteFABView.RESET_DELAY + 500;
+
+  private static final int WINDOW_WIDTH = 1080;
+  private static final int WINDOW_HEIGHT = 1920;
+
+  private static Method animationsCountMethod;
+
+  private final int instances;
+  private final InvalidationCountingLayout root;
+  private final List<FABProgressCircle> circles = new ArrayList<>();
+  private final CountingCanvas canvas;
+  private int completedCount;
+
+  StressScene(Activity activity, int instances) {
+    this.instances = instances;
+    root = new InvalidationCountingLayout(activity);
+    int fabSize = activity.getResources().getDimensionPixelSize(R.dimen.fab_size_normal);
+    for (int i = 0; i < instances; i++) {
+      FABProgressCircle circle = new FABProgressCircle(activity);
+      circle.setReusable(true);
+      circle.attachListener(this);
+      circle.addView(createFab(activity), new ViewGroup.LayoutParams(fabSize, fabSize));
+      root.addView(circle, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+          ViewGroup.LayoutParams.WRAP_CONTENT));
+      circles.add(circle);
+    }
+
+    activity.setContentView(root);
+    canvas = new CountingCanvas(Bitmap.createBitmap(WINDOW_WIDTH, WINDOW_HEIGHT,
+        Bitmap.Config.ARGB_8888));
+    Robolectric.pauseMainLooper();
+    layout();
+  }
+
+  private View createFab(Activity activity) {
+    ImageButton fab = new ImageButton(activity);
+    fab.setBackgroundDrawable(new ShapeDrawable(new OvalShape()));
+    return fab;
+  }
+
+  StressReport.SceneMetrics run() {
+    long heapBefore = usedHeap();
+    StressReport.SceneMetrics metrics = new StressReport.SceneMetrics(instances);
+
+    metrics.phases.add(runPhase("show", SHOW_MILLIS, new Runnable() {
+      @Override public void run() {
+        for (FABProgressCircle circle : circles) {
+          circle.show();
+        }
+      }
+    }));
+    metrics.phases.add(runPhase("spin", SPIN_MILLIS, null));
+    metrics.phases.add(runPhase("complete", COMPLETE_MILLIS, new Runnable() {
+      @Override public void run() {
+        for (FABProgressCircle circle : circles) {
+          circle.beginFinalAnimation();
+        }
+      }
+    }));
+    metrics.phases.add(runPhase("reset", RESET_MILLIS, null));
+
+    metrics.heapGrowthBytes = usedHeap() - heapBefore;
+    return metrics;
+  }
+
+  StressReport.PhaseMetrics runPhase(String name, int durationMillis, Runnable action) {
+    int frames = durationMillis / FRAME_MILLIS;
+    StressReport.PhaseMetrics phase = new StressReport.PhaseMetrics(name, frames);
+    long invalidationsBefore = root.getInvalidations();
+    if (action != null) {
+      action.run();
+    }
+
+    for (int i = 0; i < frames; i++) {
+      frame(phase);
+    }
+
+    phase.invalidations = root.getInvalidations() - invalidationsBefore;
+    return phase;
+  }
+
+  private void frame(StressReport.PhaseMetrics phase) {
+    long start = System.nanoTime();
+    Robolectric.getUiThreadScheduler().advanceBy(FRAME_MILLIS);
+    if (root.isLayoutRequested()) {
+      layout();
+    }
+    canvas.resetDrawOps();
+    root.draw(canvas);
+    phase.addFrame(System.nanoTime() - start);
+
+    phase.drawOps += canvas.getDrawOps();
+    phase.maxRunningAnimators = Math.max(phase.maxRunningAnimators, getRunningAnimators());
+  }
+
+  private void layout() {
+    root.measure(View.MeasureSpec.makeMeasureSpec(WINDOW_WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+    root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+  }
+
+  @Override public void onFABProgressAnimationEnd() {
+    completedCount++;
+  }
+
+  int getCompletedCount() {
+    return completedCount;
+  }
+
+  InvalidationCountingLayout getRoot() {
+    return root;
+  }
+
+  List<FABProgressCircle> getCircles() {
+    return circles;
+  }
+
+  /**
+   * Animators registered into the animation handler. The framework only exposes this as a hidden
+   * method, so -1 is reported if it is not available.
+   */
+  static int getRunningAnimators() {
+    try {
+      if (animationsCountMethod == null) {
+        animationsCountMethod = ValueAnimator.class.getMethod("getCurrentAnimationsCount");
+      }
+      return (Integer) animationsCountMethod.invoke(null);
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
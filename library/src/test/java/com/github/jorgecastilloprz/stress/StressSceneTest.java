@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.stress;
+
+import android.app.Activity;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the stress scene for growing numbers of instances and writes the collected metrics to
+ * {@code build/reports/stress/fabprogresscircle-stress.json}, to be diffed against a baseline.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class StressSceneTest {
+
+  private static final int[] SCENE_SIZES = { 1, 10, 100, 500 };
+  private static final File REPORT_FILE =
+      new File("build/reports/stress/fabprogresscircle-stress.json");
+
+  @Test public void drivesEverySceneSizeThroughAllPhases() throws IOException {
+    StressReport report = new StressReport();
+    for (int size : SCENE_SIZES) {
+      StressScene scene = new StressScene(newActivity(), size);
+      StressReport.SceneMetrics metrics = scene.run();
+
+      assertEquals(size, scene.getCompletedCount());
+      for (StressReport.PhaseMetrics phase : metrics.phases) {
+        assertTrue(phase.getFrames() > 0);
+      }
+      report.add(metrics);
+    }
+
+    report.writeTo(REPORT_FILE);
+  }
+
+  private Activity newActivity() {
+    return Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+  }
+}
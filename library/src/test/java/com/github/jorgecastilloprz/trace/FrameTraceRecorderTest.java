@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.trace;
+
+import com.github.jorgecastilloprz.stress.AllocationCounter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Dumps written by {@link FrameTraceRecorder} must decode back to the same records, oldest first,
+ * and recording must not allocate.
+ *
+ * @author Jorge Castillo Pérez
+ */
+public class FrameTraceRecorderTest {
+
+  @Test public void recordsDecodeBack() throws IOException {
+    FrameTraceRecorder recorder = new FrameTraceRecorder(16);
+    recorder.record(1000, FrameTraceRecorder.PHASE_GROW, 10.5f, 20.25f, 1500);
+    recorder.record(2000, FrameTraceRecorder.PHASE_COMPLETION, 0, 1, 3000000000L);
+
+    List<FrameTraceDecoder.Record> records = roundTrip(recorder);
+
+    assertEquals(2, records.size());
+    FrameTraceDecoder.Record first = records.get(0);
+    assertEquals(1000, first.timestampNanos);
+    assertEquals(FrameTraceRecorder.PHASE_GROW, first.phase);
+    assertEquals(10.5f, first.startAngle, 0);
+    assertEquals(20.25f, first.sweepAngle, 0);
+    assertEquals(1500, first.drawDurationNanos);
+    assertEquals(Integer.MAX_VALUE, records.get(1).drawDurationNanos);
+  }
+
+  @Test public void oldestRecordsAreOverwritten() throws IOException {
+    FrameTraceRecorder recorder = new FrameTraceRecorder(8);
+    for (int i = 0; i < 20; i++) {
+      recorder.record(i, FrameTraceRecorder.PHASE_SHRINK, i, i, i);
+    }
+
+    List<FrameTraceDecoder.Record> records = roundTrip(recorder);
+
+    assertEquals(20, recorder.getRecordCount());
+    assertEquals(8, records.size());
+    for (int i = 0; i < records.size(); i++) {
+      assertEquals(12 + i, records.get(i).timestampNanos);
+    }
+  }
+
+  @Test public void recordingDoesNotAllocate() {
+    FrameTraceRecorder recorder = new FrameTraceRecorder(1024);
+    AllocationCounter allocations = new AllocationCounter();
+    for (int i = 0; i < 10000; i++) {
+      allocations.start();
+      recorder.record(i, FrameTraceRecorder.PHASE_GROW, i, i, i);
+      long allocated = allocations.stop();
+      if (i > 1000) {
+        assertEquals("Record " + i + " allocated", 0, allocated);
+      }
+    }
+  }
+
+  private static List<FrameTraceDecoder.Record> roundTrip(FrameTraceRecorder recorder)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    recorder.dump(out);
+    return FrameTraceDecoder.decode(new ByteArrayInputStream(out.toByteArray()));
+  }
+}
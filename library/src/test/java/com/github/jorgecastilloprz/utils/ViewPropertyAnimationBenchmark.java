@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015 Jorge Castillo Pérez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jorgecastilloprz.utils;
+
+import android.animation.AnimatorSet;
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+import com.github.jorgecastilloprz.stress.AllocationCounter;
+import java.util.Locale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the cost of one scale transition built the old way (two string based ObjectAnimators
+ * into a new AnimatorSet per transition) against a reused {@link ViewPropertyAnimation}. Both of
+ * them get built (or reused) and then stepped through every frame of the transition.
+ *
+ * @author Jorge Castillo Pérez
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18, manifest = "src/main/AndroidManifest.xml")
+public class ViewPropertyAnimationBenchmark {
+
+  private static final int DURATION = 150;
+  private static final int FRAME_MILLIS = 16;
+  private static final int WARM_UP_TRANSITIONS = 100;
+  private static final int MEASURED_TRANSITIONS = 2000;
+
+  private final AllocationCounter allocations = new AllocationCounter();
+  private long bytes;
+  private long nanos;
+
+  @Test public void reusedPropertyAnimationIsCheaperThanReflectiveAnimators() {
+    View view = new View(Robolectric.application);
+
+    for (int i = 0; i < WARM_UP_TRANSITIONS; i++) {
+      reflectiveTransition(view);
+    }
+    resetCounters();
+    for (int i = 0; i < MEASURED_TRANSITIONS; i++) {
+      measure(reflectiveTransition(view));
+    }
+    long beforeBytes = bytes / MEASURED_TRANSITIONS;
+    long beforeNanos = nanos / MEASURED_TRANSITIONS;
+
+    ViewPropertyAnimation animation =
+        new ViewPropertyAnimation(view, ViewPropertyAnimation.Property.SCALE, DURATION,
+            new LinearInterpolator()).setRange(0, 1);
+    for (int i = 0; i < WARM_UP_TRANSITIONS; i++) {
+      typedTransition(animation);
+    }
+    resetCounters();
+    for (int i = 0; i < MEASURED_TRANSITIONS; i++) {
+      measure(typedTransition(animation));
+    }
+    long afterBytes = bytes / MEASURED_TRANSITIONS;
+    long afterNanos = nanos / MEASURED_TRANSITIONS;
+
+    System.out.println(String.format(Locale.US,
+        "Scale transition: before %d bytes / %d ns, after %d bytes / %d ns", beforeBytes,
+        beforeNanos, afterBytes, afterNanos));
+    assertTrue(afterBytes < beforeBytes);
+  }
+
+  private long reflectiveTransition(View view) {
+    long start = System.nanoTime();
+    allocations.start();
+    ValueAnimator scaleX = ObjectAnimator.ofFloat(view, "scaleX", 0, 1);
+    ValueAnimator scaleY = ObjectAnimator.ofFloat(view, "scaleY", 0, 1);
+    AnimatorSet set = new AnimatorSet();
+    set.setDuration(DURATION).setInterpolator(new LinearInterpolator());
+    set.playTogether(scaleX, scaleY);
+    for (int time = 0; time <= DURATION; time += FRAME_MILLIS) {
+      scaleX.setCurrentPlayTime(time);
+      scaleY.setCurrentPlayTime(time);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private long typedTransition(ViewPropertyAnimation animation) {
+    long start = System.nanoTime();
+    allocations.start();
+    ValueAnimator animator = animation.getAnimator();
+    for (int time = 0; time <= DURATION; time += FRAME_MILLIS) {
+      animator.setCurrentPlayTime(time);
+    }
+    return System.nanoTime() - start;
+  }
+
+  private void measure(long transitionNanos) {
+    bytes += allocations.stop();
+    nanos += transitionNanos;
+  }
+
+  private void resetCounters() {
+    bytes = 0;
+    nanos = 0;
+  }
+}